@@ -20,11 +20,20 @@ import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.loader.archive.Archive;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 public interface LibModuleLoadService {
 
     Module loadModule(String name, Archive archive) throws CabinRuntimeException;
 
+    /**
+     * Create the modules concurrently on the executor, then register them in the order of the archives.
+     * @param executor pool owned by the caller
+     * @return the modules in the order of the archives
+     */
+    List<Module> loadModules(Map<String, Archive> archives, ExecutorService executor) throws CabinRuntimeException;
+
     Module getModule(String name);
 
     Module destroyModule(String name);
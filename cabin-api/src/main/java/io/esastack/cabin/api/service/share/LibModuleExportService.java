@@ -17,6 +17,8 @@ package io.esastack.cabin.api.service.share;
 
 import io.esastack.cabin.common.exception.CabinRuntimeException;
 
+import java.util.concurrent.ExecutorService;
+
 public interface LibModuleExportService {
 
     int exportResources(String moduleName) throws CabinRuntimeException;
@@ -25,5 +27,15 @@ public interface LibModuleExportService {
 
     void preLoadAllSharedClasses();
 
+    /**
+     * @param executor pool to load the classes on, which is owned and shut down by the caller
+     */
+    void preLoadAllSharedClasses(ExecutorService executor);
+
+    /**
+     * Publish the classes exported by the modules exported since the last publishing.
+     */
+    void publishExports();
+
     void destroyModule(String moduleName);
 }
@@ -16,29 +16,80 @@
 package io.esastack.cabin.api.service.share;
 
 import io.esastack.cabin.api.domain.Module;
+import io.esastack.cabin.common.exception.CabinRuntimeException;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The implementation should save the mapping of classname to libModule, classname to class;
+ * <p>
+ * The classes and packages added by modules are staged until {@link #publishSharedClasses()}, none of the query
+ * methods, such as {@link #getSharedClass(String)}, {@link #containsClass(String)}, {@link #getSharedClassCount()}
+ * and {@link #isPackageExported(String)}, sees them before publishing.
  */
 public interface SharedClassService {
 
     void addSharedClass(final String className, final Class<?> clazz);
 
+    /**
+     * Same as {@link #addSharedClasses(Collection, Module)} with a single class, which is visible after
+     * {@link #publishSharedClasses()}.
+     */
     void addSharedClass(final String className, final Module module);
 
+    /**
+     * Add the classes exported by the module at once, which are visible after {@link #publishSharedClasses()};
+     * none of the classes is added if any of them is exported by another module.
+     */
+    void addSharedClasses(final Collection<String> classNames, final Module module) throws CabinRuntimeException;
+
+    /**
+     * Same as {@link #addSharedClasses(Collection, Module)}, with the classes given by package.
+     *
+     * @param packageClasses package name, empty for the default package, to the simple names of the classes
+     */
+    void addSharedClasses(final Map<String, ? extends Collection<String>> packageClasses, final Module module)
+            throws CabinRuntimeException;
+
+    /**
+     * Add a package exported by the module, which is visible after {@link #publishSharedClasses()}.
+     */
     void addSharedPackage(final String packageName, final Module module);
 
+    /**
+     * Publish the classes and packages added since the last publishing, which are looked up from a compact routing
+     * table afterwards; called after modules exported.
+     */
+    void publishSharedClasses();
+
     void preLoadAllSharedClasses();
 
+    /**
+     * @param executor pool to load the classes on, which is owned and shut down by the caller
+     */
+    void preLoadAllSharedClasses(final ExecutorService executor);
+
     Class<?> getSharedClass(final String className);
 
     Map<String, Class<?>> getSharedClassMap();
 
+    /**
+     * @return count of the published classes
+     */
     int getSharedClassCount();
 
+    /**
+     * @return true if the class is published
+     */
     boolean containsClass(final String className);
 
+    /**
+     * @param packageName package name
+     * @return true if the package or any of its parent packages is published by some module
+     */
+    boolean isPackageExported(final String packageName);
+
     void destroyModuleClasses(final String moduleName);
 }
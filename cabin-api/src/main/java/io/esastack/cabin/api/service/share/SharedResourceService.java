@@ -15,14 +15,23 @@
  */
 package io.esastack.cabin.api.service.share;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SharedResourceService {
 
     List<ClassLoader> getResourceClassLoaders(String name);
 
+    /**
+     * @param prefix prefix of the resource names, such as META-INF/services/
+     * @return exported resource names starting with the prefix, in order
+     */
+    List<String> getResourceNames(String prefix);
+
     void addExportClassLoader(String name, ClassLoader classLoader);
 
+    void addExportClassLoaders(Collection<String> names, ClassLoader classLoader);
+
     void destroyModuleResources(final String moduleName);
 
 }
@@ -32,6 +32,7 @@
 package io.esastack.cabin.loader.archive;
 
 import io.esastack.cabin.common.constant.Constants;
+import io.esastack.cabin.loader.util.ManifestParseCounter;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -121,6 +122,7 @@ public class ExplodedArchive implements Archive {
             FileInputStream inputStream = new FileInputStream(this.manifestFile);
             try {
                 this.manifest = new Manifest(inputStream);
+                ManifestParseCounter.increment();
             } finally {
                 inputStream.close();
             }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link RandomAccessData} implementation backed by read-only memory mappings of a file. Reads are memory copies
+ * without seek and read system calls or a pool of file handles, and subsections, such as nested jars, are slices of
+ * the mappings, so no data is copied and no locking is needed. Files larger than 2GB are mapped in chunks.
+ * <p>
+ * Mappings are released only when the buffers are garbage collected, the file may stay locked on Windows after
+ * {@link #close()}.
+ */
+public class MappedRandomAccessDataFile extends RandomAccessDataFile {
+
+    static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+
+    private static final ByteBuffer[] NO_CHUNKS = new ByteBuffer[0];
+
+    private final MappedData data;
+
+    /**
+     * Create a new {@link MappedRandomAccessDataFile} backed by the specified file.
+     *
+     * @param file the underlying file
+     * @throws IllegalArgumentException if the file is null or does not exist
+     * @throws IOException              if the file cannot be mapped
+     */
+    public MappedRandomAccessDataFile(File file) throws IOException {
+        this(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    MappedRandomAccessDataFile(File file, int chunkSize) throws IOException {
+        super(file, 1);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        final ByteBuffer[] chunks = map(file, chunkSize);
+        long length = 0L;
+        for (ByteBuffer chunk : chunks) {
+            length += chunk.capacity();
+        }
+        this.data = new MappedData(chunks, chunkSize, 0L, length);
+    }
+
+    private static ByteBuffer[] map(File file, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final ByteBuffer[] chunks = new ByteBuffer[(int) ((size + chunkSize - 1) / chunkSize)];
+            for (int i = 0; i < chunks.length; i++) {
+                final long position = (long) i * chunkSize;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+            }
+            return chunks;
+        }
+    }
+
+    @Override
+    public InputStream getInputStream(ResourceAccess access) throws IOException {
+        return this.data.getInputStream(access);
+    }
+
+    @Override
+    public RandomAccessData getSubsection(long offset, long length) {
+        return this.data.getSubsection(offset, length);
+    }
+
+    @Override
+    public long getSize() {
+        return this.data.getSize();
+    }
+
+    /**
+     * A section of the mapped chunks, the {@link ResourceAccess} hint is ignored as no file handle is involved.
+     */
+    private static final class MappedData implements RandomAccessData {
+
+        private final ByteBuffer[] chunks;
+
+        private final int chunkSize;
+
+        private final long offset;
+
+        private final long length;
+
+        private MappedData(ByteBuffer[] chunks, int chunkSize, long offset, long length) {
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public InputStream getInputStream(ResourceAccess access) {
+            return new MappedInputStream();
+        }
+
+        @Override
+        public RandomAccessData getSubsection(long offset, long length) {
+            if (offset < 0 || length < 0 || offset + length > this.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (length == 0) {
+                return new MappedData(NO_CHUNKS, this.chunkSize, 0L, 0L);
+            }
+            final long start = this.offset + offset;
+            final int index = (int) (start / this.chunkSize);
+            if (index != (int) ((start + length - 1) / this.chunkSize)) {
+                return new MappedData(this.chunks, this.chunkSize, start, length);
+            }
+            //the common case, a slice sharing the memory of the chunk
+            final int position = (int) (start % this.chunkSize);
+            final ByteBuffer slice = this.chunks[index].duplicate();
+            ((Buffer) slice).limit(position + (int) length);
+            ((Buffer) slice).position(position);
+            return new MappedData(new ByteBuffer[]{slice.slice()}, this.chunkSize, 0L, length);
+        }
+
+        @Override
+        public long getSize() {
+            return this.length;
+        }
+
+        private final class MappedInputStream extends InputStream {
+
+            private long position;
+
+            private int chunkIndex = -1;
+
+            private ByteBuffer chunk;
+
+            @Override
+            public int read() {
+                if (this.position >= MappedData.this.length) {
+                    return -1;
+                }
+                final long absolute = MappedData.this.offset + this.position++;
+                return chunks[(int) (absolute / chunkSize)].get((int) (absolute % chunkSize)) & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (b == null) {
+                    throw new NullPointerException("Bytes must not be null");
+                }
+                if (off < 0 || len < 0 || len > b.length - off) {
+                    throw new IndexOutOfBoundsException();
+                }
+                if (len == 0) {
+                    return 0;
+                }
+                final long remaining = MappedData.this.length - this.position;
+                if (remaining <= 0) {
+                    return -1;
+                }
+                final long absolute = MappedData.this.offset + this.position;
+                final int index = (int) (absolute / chunkSize);
+                final int within = (int) (absolute % chunkSize);
+                if (index != this.chunkIndex) {
+                    //a private view, so that the position is not shared with other readers
+                    this.chunk = chunks[index].duplicate();
+                    this.chunkIndex = index;
+                }
+                final int count = (int) Math.min(Math.min(len, remaining), this.chunk.capacity() - within);
+                ((Buffer) this.chunk).position(within);
+                this.chunk.get(b, off, count);
+                this.position += count;
+                return count;
+            }
+
+            @Override
+            public long skip(long n) {
+                if (n <= 0) {
+                    return 0;
+                }
+                final long skipped = Math.min(MappedData.this.length - this.position, n);
+                this.position += skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(MappedData.this.length - this.position, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.jar;
+
+import io.esastack.cabin.common.constant.Constants;
+import io.esastack.cabin.loader.data.RandomAccessData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Index file of the sorted entry arrays of a {@link JarFileEntries}, stored in the directory set by
+ * {@link Constants#CABIN_JAR_INDEX_DIR}, so that the central directory of a jar is not read and sorted again at the
+ * next boot. There is one index file per root or nested jar, keyed by the path of the root jar and the path of the
+ * nested jar in it, and invalidated once the size or the last modified time of the root jar changed.
+ * <p>
+ * File format: magic, version, key, root length, root last modified, central directory size, number of records,
+ * signed flag, size, then the hash codes, central directory offsets and positions arrays.
+ */
+final class CentralDirectoryIndex {
+
+    private static final int MAGIC = 0x43414249;
+
+    private static final int VERSION = 1;
+
+    private final File indexFile;
+
+    private final byte[] key;
+
+    private final long rootLength;
+
+    private final long rootLastModified;
+
+    private CentralDirectoryIndex(File indexFile, byte[] key, long rootLength, long rootLastModified) {
+        this.indexFile = indexFile;
+        this.key = key;
+        this.rootLength = rootLength;
+        this.rootLastModified = rootLastModified;
+    }
+
+    /**
+     * @return null if no index directory is configured
+     */
+    static CentralDirectoryIndex of(File rootFile, String pathFromRoot) {
+        final String dir = System.getProperty(Constants.CABIN_JAR_INDEX_DIR);
+        if (dir == null || dir.isEmpty()) {
+            return null;
+        }
+        final String key = rootFile.getAbsolutePath() + pathFromRoot;
+        final String name = rootFile.getName() + "-" + Integer.toHexString(key.hashCode()) + ".idx";
+        return new CentralDirectoryIndex(new File(dir, name), key.getBytes(StandardCharsets.UTF_8),
+                rootFile.length(), rootFile.lastModified());
+    }
+
+    File getIndexFile() {
+        return this.indexFile;
+    }
+
+    /**
+     * Load the sorted arrays into the entries with one read of the index file.
+     *
+     * @return false if the index file is missing or out of date, the central directory should be parsed
+     */
+    boolean restore(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData,
+                    JarFileEntries entries, JarFile jarFile) {
+        if (!this.indexFile.isFile()) {
+            return false;
+        }
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.indexFile.toPath()));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+            final byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+            if (!Arrays.equals(this.key, key)
+                    || buffer.getLong() != this.rootLength
+                    || buffer.getLong() != this.rootLastModified
+                    || buffer.getLong() != centralDirectoryData.getSize()
+                    || buffer.getInt() != endRecord.getNumberOfRecords()) {
+                return false;
+            }
+            final boolean signed = buffer.get() != 0;
+            final int size = buffer.getInt();
+            final int[] hashCodes = new int[size];
+            final int[] centralDirectoryOffsets = new int[size];
+            final int[] positions = new int[size];
+            buffer.asIntBuffer().get(hashCodes);
+            ((Buffer) buffer).position(buffer.position() + size * 4);
+            buffer.asIntBuffer().get(centralDirectoryOffsets);
+            ((Buffer) buffer).position(buffer.position() + size * 4);
+            buffer.asIntBuffer().get(positions);
+            //the signed flag decides the cache size of the restored entries
+            jarFile.setSigned(signed);
+            entries.restore(centralDirectoryData, size, hashCodes, centralDirectoryOffsets, positions);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            //Corrupted or truncated index file, parse the central directory instead
+            return false;
+        }
+    }
+
+    /**
+     * Write the parsed arrays to the index file, any failure is ignored as the index is only an optimization.
+     */
+    void store(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData,
+               JarFileEntries entries, JarFile jarFile) {
+        final int size = entries.getSize();
+        final ByteBuffer buffer = ByteBuffer.allocate(4 * 4 + this.key.length + 8 * 3 + 1 + 4 + size * 4 * 3);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(this.key.length).put(this.key)
+                .putLong(this.rootLength).putLong(this.rootLastModified)
+                .putLong(centralDirectoryData.getSize()).putInt(endRecord.getNumberOfRecords())
+                .put((byte) (jarFile.isSigned() ? 1 : 0)).putInt(size);
+        entries.writeIndex(buffer);
+        File temp = null;
+        try {
+            final File dir = this.indexFile.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+                return;
+            }
+            temp = File.createTempFile(this.indexFile.getName(), ".tmp", dir);
+            Files.write(temp.toPath(), buffer.array());
+            Files.move(temp.toPath(), this.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException ex) {
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+}
@@ -66,14 +66,35 @@ class CentralDirectoryParser {
      */
     public RandomAccessData parse(RandomAccessData data, boolean skipPrefixBytes)
             throws IOException {
+        return parse(data, skipPrefixBytes, null);
+    }
+
+    /**
+     * Parse the source data, the file headers are not visited if the index has been restored, or else the index
+     * is stored once the visitors have finished.
+     *
+     * @param data            the source data
+     * @param skipPrefixBytes if prefix bytes should be skipped
+     * @param index           the index of the visitors, may be null
+     * @return The actual archive data without any prefix bytes
+     * @throws IOException on error
+     */
+    public RandomAccessData parse(RandomAccessData data, boolean skipPrefixBytes, Index index)
+            throws IOException {
         CentralDirectoryEndRecord endRecord = new CentralDirectoryEndRecord(data);
         if (skipPrefixBytes) {
             data = getArchiveData(endRecord, data);
         }
         RandomAccessData centralDirectoryData = endRecord.getCentralDirectory(data);
+        if (index != null && index.restore(endRecord, centralDirectoryData)) {
+            return data;
+        }
         visitStart(endRecord, centralDirectoryData);
         parseEntries(endRecord, centralDirectoryData);
         visitEnd();
+        if (index != null) {
+            index.store(endRecord, centralDirectoryData);
+        }
         return data;
     }
 
@@ -119,4 +140,14 @@ class CentralDirectoryParser {
         }
     }
 
+    /**
+     * Persisted result of the visitors, which replaces visiting the file headers.
+     */
+    interface Index {
+
+        boolean restore(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData);
+
+        void store(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData);
+    }
+
 }
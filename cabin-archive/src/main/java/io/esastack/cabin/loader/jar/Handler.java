@@ -102,6 +102,8 @@ public class Handler extends URLStreamHandler {
 
     private final JarFile jarFile;
 
+    private final boolean fastConnectionExceptions;
+
     private URLStreamHandler fallbackHandler;
 
     public Handler() {
@@ -109,7 +111,17 @@ public class Handler extends URLStreamHandler {
     }
 
     public Handler(JarFile jarFile) {
+        this(jarFile, false);
+    }
+
+    /**
+     * @param jarFile                  the jar file the URLs of this handler are relative to
+     * @param fastConnectionExceptions if a generic static exception can be thrown when a URL of this handler cannot be
+     *                                 connected, which is decided once by the handler instead of per thread.
+     */
+    public Handler(JarFile jarFile, boolean fastConnectionExceptions) {
         this.jarFile = jarFile;
+        this.fastConnectionExceptions = fastConnectionExceptions;
     }
 
     /**
@@ -168,19 +180,51 @@ public class Handler extends URLStreamHandler {
      * which are then swallowed.
      *
      * @param useFastConnectionExceptions if fast connection exceptions can be used.
+     * @deprecated the flag costs a thread local access per connection, classloaders should look entries up directly
+     * by {@link JarFile#getEntryUrl(String)} instead.
      */
+    @Deprecated
     public static void setUseFastConnectionExceptions(
             boolean useFastConnectionExceptions) {
         JarURLConnection.setUseFastExceptions(useFastConnectionExceptions);
     }
 
+    /**
+     * Convert a URL pointing to the root of a cabin jar to one whose connections use fast exceptions, all the URLs
+     * built on it share its handler, so the probing of missing entries is cheap without toggling
+     * {@link #setUseFastConnectionExceptions(boolean)} around every lookup. It is only meant for internal probing:
+     * the converted URLs, and the ones built on them, should never be handed to callers, since their failures carry
+     * no message. URLs which do not point to the root of a cabin {@link JarFile} are returned as they are.
+     *
+     * @param url classpath URL
+     * @return URL with the same spec
+     */
+    public static URL toFastConnectionExceptionsUrl(URL url) {
+        if (url == null || !"jar".equals(url.getProtocol())) {
+            return url;
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            if (connection instanceof JarURLConnection) {
+                JarFile jarFile = ((JarURLConnection) connection).getJarFile();
+                URL fastUrl = jarFile.getFastConnectionExceptionsUrl();
+                if (fastUrl.toExternalForm().equals(url.toExternalForm())) {
+                    return fastUrl;
+                }
+            }
+        } catch (IOException ex) {
+            // Ignore
+        }
+        return url;
+    }
+
     @Override
     protected URLConnection openConnection(URL url) throws IOException {
         if (this.jarFile != null) {
-            return JarURLConnection.get(url, this.jarFile);
+            return JarURLConnection.get(url, this.jarFile, this.fastConnectionExceptions);
         }
         try {
-            return JarURLConnection.get(url, getRootJarFileFromUrl(url));
+            return JarURLConnection.get(url, getRootJarFileFromUrl(url), this.fastConnectionExceptions);
         } catch (Exception ex) {
             return openFallbackConnection(url, ex);
         }
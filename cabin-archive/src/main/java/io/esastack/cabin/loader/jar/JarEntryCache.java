@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.jar;
+
+import io.esastack.cabin.common.constant.Constants;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free cache of the entries of a {@link JarFileEntries}, keyed by the index of the entry in the sorted arrays.
+ * The cache is direct mapped: the slot of an entry is its index modulo the capacity, so a lookup is an array read,
+ * and caching an entry only replaces the entry in the same slot.
+ * <p>
+ * The capacity is the entry count rounded up to a power of two, which never evicts, limited by
+ * {@link Constants#CABIN_JAR_ENTRY_CACHE_SIZE}. Entries of signed jars carry their certificates, so they are always
+ * cached without limit.
+ */
+final class JarEntryCache {
+
+    static final int DEFAULT_MAX_SIZE = 4096;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final AtomicReferenceArray<Slot> slots;
+
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private JarEntryCache(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    static JarEntryCache create(int entryCount, boolean unbounded) {
+        int capacity = capacityOf(entryCount);
+        if (!unbounded) {
+            capacity = Math.min(capacity, capacityOf(Integer.getInteger(Constants.CABIN_JAR_ENTRY_CACHE_SIZE,
+                    DEFAULT_MAX_SIZE)));
+        }
+        return new JarEntryCache(capacity);
+    }
+
+    private static int capacityOf(int size) {
+        if (size <= 1) {
+            return 1;
+        }
+        return size >= MAX_CAPACITY ? MAX_CAPACITY : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    FileHeader get(int index) {
+        final Slot slot = this.slots.get(index & this.mask);
+        if (slot != null && slot.index == index) {
+            this.hits.increment();
+            return slot.entry;
+        }
+        this.misses.increment();
+        return null;
+    }
+
+    void put(int index, FileHeader entry) {
+        final Slot previous = this.slots.getAndSet(index & this.mask, new Slot(index, entry));
+        if (previous != null && previous.index != index) {
+            this.evictions.increment();
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            this.slots.set(i, null);
+        }
+    }
+
+    int capacity() {
+        return this.slots.length();
+    }
+
+    JarEntryCacheStats stats() {
+        return new JarEntryCacheStats(capacity(), this.hits.sum(), this.misses.sum(), this.evictions.sum());
+    }
+
+    private static final class Slot {
+
+        private final int index;
+
+        private final FileHeader entry;
+
+        private Slot(int index, FileHeader entry) {
+            this.index = index;
+            this.entry = entry;
+        }
+    }
+}
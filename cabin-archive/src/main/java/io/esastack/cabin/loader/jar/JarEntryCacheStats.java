@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.jar;
+
+/**
+ * Snapshot of the statistics of the entry cache of a {@link JarFile}.
+ */
+public final class JarEntryCacheStats {
+
+    private final int capacity;
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    JarEntryCacheStats(int capacity, long hitCount, long missCount, long evictionCount) {
+        this.capacity = capacity;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return hits / (hits + misses), 0 if there is no lookup yet
+     */
+    public double getHitRatio() {
+        final long total = hitCount + missCount;
+        return total == 0 ? 0D : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "JarEntryCacheStats{capacity=" + capacity + ", hitCount=" + hitCount + ", missCount=" + missCount
+                + ", evictionCount=" + evictionCount + ", hitRatio=" + getHitRatio() + "}";
+    }
+}
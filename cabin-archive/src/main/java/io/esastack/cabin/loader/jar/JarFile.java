@@ -31,8 +31,11 @@
  */
 package io.esastack.cabin.loader.jar;
 
+import io.esastack.cabin.common.constant.Constants;
+import io.esastack.cabin.loader.data.MappedRandomAccessDataFile;
 import io.esastack.cabin.loader.data.RandomAccessData;
 import io.esastack.cabin.loader.data.RandomAccessDataFile;
+import io.esastack.cabin.loader.util.ManifestParseCounter;
 
 import java.io.File;
 import java.io.IOException;
@@ -42,8 +45,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.net.URLStreamHandlerFactory;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
@@ -73,6 +78,8 @@ public class JarFile extends java.util.jar.JarFile {
 
     private static final AsciiBytes SIGNATURE_FILE_EXTENSION = new AsciiBytes(".SF");
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     private final RandomAccessDataFile rootFile;
 
     private final String pathFromRoot;
@@ -83,6 +90,8 @@ public class JarFile extends java.util.jar.JarFile {
 
     private URL url;
 
+    private URL fastConnectionExceptionsUrl;
+
     private JarFileEntries entries;
 
     private SoftReference<Manifest> manifest;
@@ -96,7 +105,7 @@ public class JarFile extends java.util.jar.JarFile {
      * @throws IOException if the file cannot be read
      */
     public JarFile(File file) throws IOException {
-        this(new RandomAccessDataFile(file));
+        this(openRootFile(file));
     }
 
     /**
@@ -134,10 +143,45 @@ public class JarFile extends java.util.jar.JarFile {
         CentralDirectoryParser parser = new CentralDirectoryParser();
         this.entries = parser.addVisitor(new JarFileEntries(this, filter));
         parser.addVisitor(centralDirectoryVisitor());
-        this.data = parser.parse(data, filter == null);
+        this.data = parser.parse(data, filter == null, createIndex(rootFile, pathFromRoot, filter));
         this.type = type;
     }
 
+    /**
+     * The root file is memory mapped if {@link Constants#CABIN_JAR_MMAP_ENABLED} is set, or else read through a pool
+     * of {@link java.io.RandomAccessFile}.
+     */
+    private static RandomAccessDataFile openRootFile(File file) throws IOException {
+        if (Boolean.parseBoolean(System.getProperty(Constants.CABIN_JAR_MMAP_ENABLED, "false"))) {
+            return new MappedRandomAccessDataFile(file);
+        }
+        return new RandomAccessDataFile(file);
+    }
+
+    /**
+     * Jars of nested directories are filtered views of their parent, which are not indexed.
+     */
+    private CentralDirectoryParser.Index createIndex(RandomAccessDataFile rootFile, String pathFromRoot,
+                                                     JarEntryFilter filter) {
+        final CentralDirectoryIndex index = filter == null
+                ? CentralDirectoryIndex.of(rootFile.getFile(), pathFromRoot) : null;
+        if (index == null) {
+            return null;
+        }
+        return new CentralDirectoryParser.Index() {
+
+            @Override
+            public boolean restore(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData) {
+                return index.restore(endRecord, centralDirectoryData, JarFile.this.entries, JarFile.this);
+            }
+
+            @Override
+            public void store(CentralDirectoryEndRecord endRecord, RandomAccessData centralDirectoryData) {
+                index.store(endRecord, centralDirectoryData, JarFile.this.entries, JarFile.this);
+            }
+        };
+    }
+
     /**
      * Register a {@literal 'java.protocol.handler.pkgs'} property so that a
      * {@link URLStreamHandler} will be located to deal with jar URLs.
@@ -209,6 +253,7 @@ public class JarFile extends java.util.jar.JarFile {
                 }
                 try {
                     manifest = new Manifest(inputStream);
+                    ManifestParseCounter.increment();
                 } finally {
                     inputStream.close();
                 }
@@ -245,6 +290,15 @@ public class JarFile extends java.util.jar.JarFile {
         return this.entries.containsEntry(name);
     }
 
+    /**
+     * Return the names of the packages which contain class files in this jar.
+     *
+     * @return package names, such as {@code io.esastack.cabin.loader.jar}
+     */
+    public Set<String> getPackageNames() {
+        return this.entries.getPackageNames();
+    }
+
     @Override
     public ZipEntry getEntry(String name) {
         return this.entries.getEntry(name);
@@ -347,14 +401,77 @@ public class JarFile extends java.util.jar.JarFile {
      */
     public URL getUrl() throws MalformedURLException {
         if (this.url == null) {
-            Handler handler = new Handler(this);
-            String file = this.rootFile.getFile().toURI() + this.pathFromRoot + "!/";
-            file = file.replace("file:////", "file://"); // Fix UNC paths
-            this.url = new URL("jar", "", -1, file, handler);
+            this.url = new URL("jar", "", -1, getUrlFile(), new Handler(this));
         }
         return this.url;
     }
 
+    /**
+     * Return the URL of an entry, the same as the one {@link java.net.URLClassLoader} builds on {@link #getUrl()},
+     * without opening a connection to probe it; this is the direct lookup used by classloaders, a missing entry
+     * costs neither a connection nor an exception, while the returned URL keeps the normal handler.
+     *
+     * @param name the entry name
+     * @return the URL or {@code null} if there is no such entry
+     * @throws MalformedURLException if the URL is malformed
+     */
+    public URL getEntryUrl(String name) throws MalformedURLException {
+        if (!containsEntry(name)) {
+            return null;
+        }
+        return new URL(getUrl(), encodePath(name));
+    }
+
+    /**
+     * Return a URL same as {@link #getUrl()}, except that connecting a missing entry relative to it fails with a
+     * shared static exception. It is only meant for internal probing, the URLs built on it should never be handed
+     * to callers, because their failures carry no message.
+     *
+     * @return the URL
+     * @throws MalformedURLException if the URL is malformed
+     */
+    public URL getFastConnectionExceptionsUrl() throws MalformedURLException {
+        if (this.fastConnectionExceptionsUrl == null) {
+            this.fastConnectionExceptionsUrl = new URL("jar", "", -1, getUrlFile(), new Handler(this, true));
+        }
+        return this.fastConnectionExceptionsUrl;
+    }
+
+    private static String encodePath(String name) {
+        StringBuilder encoded = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (isUnreservedPathChar(c)) {
+                if (encoded != null) {
+                    encoded.append(c);
+                }
+                continue;
+            }
+            if (encoded == null) {
+                encoded = new StringBuilder(name.length() + 16).append(name, 0, i);
+            }
+            int end = i + 1;
+            if (Character.isHighSurrogate(c) && end < name.length()) {
+                end++;
+            }
+            for (byte b : name.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                encoded.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+            }
+            i = end - 1;
+        }
+        return encoded == null ? name : encoded.toString();
+    }
+
+    private static boolean isUnreservedPathChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || "/-_.!~*'()$&+,;=:@".indexOf(c) >= 0;
+    }
+
+    private String getUrlFile() {
+        String file = this.rootFile.getFile().toURI() + this.pathFromRoot + "!/";
+        return file.replace("file:////", "file://"); // Fix UNC paths
+    }
+
     @Override
     public String toString() {
         return getName();
@@ -369,6 +486,10 @@ public class JarFile extends java.util.jar.JarFile {
         return this.signed;
     }
 
+    void setSigned(boolean signed) {
+        this.signed = signed;
+    }
+
     void setupEntryCertificates(JarEntry entry) {
         // Fallback to JarInputStream to obtain certificates, not fast but hopefully not
         // happening that often.
@@ -403,6 +524,13 @@ public class JarFile extends java.util.jar.JarFile {
         this.entries.clearCache();
     }
 
+    /**
+     * @return statistics of the cache of the entries looked up in this jar
+     */
+    public JarEntryCacheStats getEntryCacheStats() {
+        return this.entries.getCacheStats();
+    }
+
     protected String getPathFromRoot() {
         return this.pathFromRoot;
     }
@@ -35,6 +35,8 @@ import io.esastack.cabin.loader.data.RandomAccessData;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.zip.ZipEntry;
 
@@ -49,6 +51,8 @@ import java.util.zip.ZipEntry;
  * A typical Spring Boot application will have somewhere in the region of 10,500 entries
  * which should consume about 122K.
  * <p>
+ * Created entries are kept in a lock-free {@link JarEntryCache} sized from the entry count.
+ * <p>
  * <p>
  * Record the File Header of every sub entry file in the Central Directory, and the get the Local File Header to
  * read the sub entry files.
@@ -57,26 +61,14 @@ import java.util.zip.ZipEntry;
  */
 class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
 
-    protected static final int ENTRY_CACHE_SIZE = 100;
     private static final long LOCAL_FILE_HEADER_SIZE = 30;
     private static final String SLASH = "/";
     private static final String NO_SUFFIX = "";
+    private static final AsciiBytes CLASS_SUFFIX = new AsciiBytes(".class");
     private final JarFile jarFile;
 
     private final JarEntryFilter filter;
-    private final Map<Integer, FileHeader> entriesCache = Collections
-            .synchronizedMap(new LinkedHashMap<Integer, FileHeader>(16, 0.75f, true) {
-
-                @Override
-                protected boolean removeEldestEntry(
-                        Map.Entry<Integer, FileHeader> eldest) {
-                    if (JarFileEntries.this.jarFile.isSigned()) {
-                        return false;
-                    }
-                    return size() >= ENTRY_CACHE_SIZE;
-                }
-
-            });
+    private JarEntryCache entriesCache;
     private RandomAccessData centralDirectoryData;
     private int size;
     private int[] hashCodes;
@@ -122,6 +114,33 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         for (int i = 0; i < this.size; i++) {
             this.positions[positions[i]] = i;
         }
+        this.entriesCache = JarEntryCache.create(this.size, this.jarFile.isSigned());
+    }
+
+    /**
+     * Restore the sorted arrays from a {@link CentralDirectoryIndex} instead of visiting the file headers.
+     */
+    void restore(RandomAccessData centralDirectoryData, int size, int[] hashCodes,
+                 int[] centralDirectoryOffsets, int[] positions) {
+        this.centralDirectoryData = centralDirectoryData;
+        this.size = size;
+        this.hashCodes = hashCodes;
+        this.centralDirectoryOffsets = centralDirectoryOffsets;
+        this.positions = positions;
+        this.entriesCache = JarEntryCache.create(size, this.jarFile.isSigned());
+    }
+
+    int getSize() {
+        return this.size;
+    }
+
+    void writeIndex(ByteBuffer buffer) {
+        buffer.asIntBuffer().put(this.hashCodes, 0, this.size);
+        ((Buffer) buffer).position(buffer.position() + this.size * 4);
+        buffer.asIntBuffer().put(this.centralDirectoryOffsets, 0, this.size);
+        ((Buffer) buffer).position(buffer.position() + this.size * 4);
+        buffer.asIntBuffer().put(this.positions, 0, this.size);
+        ((Buffer) buffer).position(buffer.position() + this.size * 4);
     }
 
     private void sort(int left, int right) {
@@ -262,6 +281,31 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         }
     }
 
+    /**
+     * Collect the names of the packages which contain class files, the central directory records are read directly,
+     * no entry would be created or cached.
+     */
+    public Set<String> getPackageNames() {
+        final Set<String> packageNames = new HashSet<>();
+        try {
+            for (int i = 0; i < this.size; i++) {
+                final AsciiBytes name = CentralDirectoryFileHeader.fromRandomAccessData(
+                        this.centralDirectoryData, this.centralDirectoryOffsets[i], this.filter).getName();
+                if (name == null || !name.endsWith(CLASS_SUFFIX)) {
+                    continue;
+                }
+                final String entryName = name.toString();
+                final int index = entryName.lastIndexOf('/');
+                if (index > 0) {
+                    packageNames.add(entryName.substring(0, index).replace('/', '.'));
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return packageNames;
+    }
+
     private int getFirstIndex(int hashCode) {
         int index = Arrays.binarySearch(this.hashCodes, 0, this.size, hashCode);
         if (index < 0) {
@@ -277,6 +321,10 @@ class JarFileEntries implements CentralDirectoryVisitor, Iterable<JarEntry> {
         this.entriesCache.clear();
     }
 
+    JarEntryCacheStats getCacheStats() {
+        return this.entriesCache.stats();
+    }
+
     private AsciiBytes applyFilter(AsciiBytes name) {
         return (this.filter == null ? name : this.filter.apply(name));
     }
@@ -74,17 +74,19 @@ final class JarURLConnection extends java.net.JarURLConnection {
 
     private final JarFile jarFile;
     private final JarEntryName jarEntryName;
+    private final boolean fastExceptions;
     private Permission permission;
     private URL jarFileUrl;
     private JarEntry jarEntry;
 
-    private JarURLConnection(URL url, JarFile jarFile, JarEntryName jarEntryName)
-            throws IOException {
+    private JarURLConnection(URL url, JarFile jarFile, JarEntryName jarEntryName,
+                             boolean fastExceptions) throws IOException {
         // What we pass to super is ultimately ignored
         super(EMPTY_JAR_URL);
         this.url = url;
         this.jarFile = jarFile;
         this.jarEntryName = jarEntryName;
+        this.fastExceptions = fastExceptions;
     }
 
     static void setUseFastExceptions(boolean useFastExceptions) {
@@ -101,6 +103,15 @@ final class JarURLConnection extends java.net.JarURLConnection {
      * @throws IOException if IO ERROR
      */
     static JarURLConnection get(URL url, JarFile jarFile) throws IOException {
+        return get(url, jarFile, false);
+    }
+
+    /**
+     * @param fastExceptions true if the URL handler allows fast exceptions, the thread local flag is only checked
+     *                       while it's false
+     */
+    static JarURLConnection get(URL url, JarFile jarFile, boolean fastExceptions) throws IOException {
+        boolean fast = fastExceptions || Boolean.TRUE.equals(useFastExceptions.get());
         String spec = extractFullSpec(url, jarFile.getPathFromRoot());
         int separator;
         int index = 0;
@@ -108,19 +119,19 @@ final class JarURLConnection extends java.net.JarURLConnection {
             String entryName = spec.substring(index, separator);
             JarEntry jarEntry = jarFile.getJarEntry(entryName);
             if (jarEntry == null) {
-                return JarURLConnection.notFound(jarFile, JarEntryName.get(entryName));
+                return JarURLConnection.notFound(jarFile, JarEntryName.get(entryName), fast);
             }
             jarFile = jarFile.getNestedJarFile(jarEntry);
             index = separator + SEPARATOR.length();
         }
         JarEntryName jarEntryName = JarEntryName.get(spec, index);
-        if (Boolean.TRUE.equals(useFastExceptions.get())) {
+        if (fast) {
             if (!jarEntryName.isEmpty()
                     && !jarFile.containsEntry(jarEntryName.toString())) {
                 return NOT_FOUND_CONNECTION;
             }
         }
-        return new JarURLConnection(url, jarFile, jarEntryName);
+        return new JarURLConnection(url, jarFile, jarEntryName, fast);
     }
 
     private static String extractFullSpec(URL url, String pathFromRoot) {
@@ -135,18 +146,18 @@ final class JarURLConnection extends java.net.JarURLConnection {
 
     private static JarURLConnection notFound() {
         try {
-            return notFound(null, null);
+            return notFound(null, null, false);
         } catch (IOException ex) {
             throw new IllegalStateException(ex);
         }
     }
 
-    private static JarURLConnection notFound(JarFile jarFile, JarEntryName jarEntryName)
-            throws IOException {
-        if (Boolean.TRUE.equals(useFastExceptions.get())) {
+    private static JarURLConnection notFound(JarFile jarFile, JarEntryName jarEntryName,
+                                             boolean fastExceptions) throws IOException {
+        if (fastExceptions) {
             return NOT_FOUND_CONNECTION;
         }
-        return new JarURLConnection(null, jarFile, jarEntryName);
+        return new JarURLConnection(null, jarFile, jarEntryName, false);
     }
 
     @Override
@@ -233,7 +244,7 @@ final class JarURLConnection extends java.net.JarURLConnection {
 
     private void throwFileNotFound(Object entry, JarFile jarFile)
             throws FileNotFoundException {
-        if (Boolean.TRUE.equals(useFastExceptions.get())) {
+        if (this.fastExceptions) {
             throw FILE_NOT_FOUND_EXCEPTION;
         }
         throw new FileNotFoundException(
@@ -26,11 +26,17 @@ import io.esastack.cabin.loader.jar.JarFile;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
 
 import static io.esastack.cabin.common.constant.Constants.*;
 
@@ -172,6 +178,53 @@ public class ArchiveUtils {
         }
     }
 
+    /**
+     * Class data sharing archives classes of custom classloaders only if they are loaded from plain jar files, and
+     * verifies the jar paths at runtime. The nested jar URLs are replaced by the files extracted into the dir, named
+     * by the entry name and CRC, so the same content always gets the same path and is extracted only once;
+     * other URLs, such as nested directories, are kept.
+     */
+    public static URL[] toStableJarUrls(final URL[] urls, final File dir) {
+        final URL[] stableUrls = new URL[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            final String url = urls[i].toExternalForm();
+            if (!url.startsWith("jar:") || !url.endsWith(JAR_FILE_SUFFIX + FILE_IN_JAR_SPLITTER)) {
+                stableUrls[i] = urls[i];
+                continue;
+            }
+            try {
+                stableUrls[i] = extractJar(new URL(url.substring(0, url.length() - FILE_IN_JAR_SPLITTER.length())),
+                        dir).toURI().toURL();
+            } catch (IOException e) {
+                throw new CabinRuntimeException("Failed to extract nested jar " + url, e);
+            }
+        }
+        return stableUrls;
+    }
+
+    private static File extractJar(final URL entryUrl, final File dir) throws IOException {
+        final JarURLConnection connection = (JarURLConnection) entryUrl.openConnection();
+        final JarEntry entry = connection.getJarEntry();
+        final String entryName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+        final String name = entryName.substring(0, entryName.length() - JAR_FILE_SUFFIX.length());
+        final File file = new File(dir, String.format("%s-%08x%s", name, entry.getCrc(), JAR_FILE_SUFFIX));
+        if (file.isFile() && file.length() == entry.getSize()) {
+            return file;
+        }
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Could not create dir " + dir);
+        }
+        //modules are extracted in parallel, so write to a temp file and move it to the target atomically
+        final Path temp = Files.createTempFile(dir.toPath(), name, ".tmp");
+        try (InputStream in = connection.getInputStream()) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return file;
+    }
+
     public static boolean isCabinContainerJar(final java.util.jar.JarFile jarFile) throws Exception {
         return jarFile.getManifest() != null && jarFile.getManifest().getMainAttributes() != null &&
                 jarFile.getManifest().getMainAttributes().getValue(MANIFEST_CABIN_VERSION) != null;
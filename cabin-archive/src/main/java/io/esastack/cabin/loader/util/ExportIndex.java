@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Binary index of the classes and resources exported by a lib module, written by the module maven plugin beside the
+ * text files of the exported classes and resources, and read by the container with one read instead of parsing the
+ * text files line by line. All the names are kept once in a string pool, the layout is:
+ * <pre>
+ * magic, version
+ * string pool: count, strings in modified UTF-8
+ * packages:    count, for each package: pool index of the name, class count, pool indexes of the sorted simple names
+ * resources:   count, pool indexes of the sorted names
+ * </pre>
+ */
+public final class ExportIndex {
+
+    private static final int MAGIC = 0xCAB1E0E1;
+
+    private static final int VERSION = 1;
+
+    private final String[] packages;
+
+    private final String[][] simpleNames;
+
+    private final String[] resources;
+
+    private ExportIndex(final String[] packages, final String[][] simpleNames, final String[] resources) {
+        this.packages = packages;
+        this.simpleNames = simpleNames;
+        this.resources = resources;
+    }
+
+    /**
+     * @param classes   exported class names, blank names are ignored
+     * @param resources exported resource names, blank names are ignored
+     */
+    public static void write(final OutputStream out, final Collection<String> classes,
+                             final Collection<String> resources) throws IOException {
+        final ExportIndex index = of(classes, resources);
+        final Map<String, Integer> pool = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        for (int i = 0; i < index.packages.length; i++) {
+            intern(pool, strings, index.packages[i]);
+            for (String name : index.simpleNames[i]) {
+                intern(pool, strings, name);
+            }
+        }
+        for (String name : index.resources) {
+            intern(pool, strings, name);
+        }
+
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(strings.size());
+        for (String string : strings) {
+            data.writeUTF(string);
+        }
+        data.writeInt(index.packages.length);
+        for (int i = 0; i < index.packages.length; i++) {
+            data.writeInt(pool.get(index.packages[i]));
+            data.writeInt(index.simpleNames[i].length);
+            for (String name : index.simpleNames[i]) {
+                data.writeInt(pool.get(name));
+            }
+        }
+        data.writeInt(index.resources.length);
+        for (String name : index.resources) {
+            data.writeInt(pool.get(name));
+        }
+        data.flush();
+    }
+
+    /**
+     * Create the index in memory, for the modules packaged with the text files only.
+     *
+     * @param classes   exported class names, blank names are ignored
+     * @param resources exported resource names, blank names are ignored
+     */
+    public static ExportIndex of(final Collection<String> classes, final Collection<String> resources) {
+        final Map<String, TreeSet<String>> packageClasses = new TreeMap<>();
+        for (String className : classes) {
+            final String name = className.trim();
+            if (!name.isEmpty()) {
+                final int index = name.lastIndexOf('.');
+                packageClasses.computeIfAbsent(index > 0 ? name.substring(0, index) : "", key -> new TreeSet<>())
+                        .add(name.substring(index + 1));
+            }
+        }
+        final TreeSet<String> resourceNames = new TreeSet<>();
+        for (String resource : resources) {
+            if (!resource.trim().isEmpty()) {
+                resourceNames.add(resource.trim());
+            }
+        }
+        final String[] packages = packageClasses.keySet().toArray(new String[0]);
+        final String[][] simpleNames = new String[packages.length][];
+        for (int i = 0; i < packages.length; i++) {
+            simpleNames[i] = packageClasses.get(packages[i]).toArray(new String[0]);
+        }
+        return new ExportIndex(packages, simpleNames, resourceNames.toArray(new String[0]));
+    }
+
+    public static ExportIndex read(final InputStream in) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(in.available(), 4096));
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+
+        final DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an export index");
+        }
+        final int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported export index version " + version);
+        }
+        final String[] strings = new String[data.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = data.readUTF();
+        }
+        final String[] packages = new String[data.readInt()];
+        final String[][] simpleNames = new String[packages.length][];
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = strings[data.readInt()];
+            simpleNames[i] = new String[data.readInt()];
+            for (int j = 0; j < simpleNames[i].length; j++) {
+                simpleNames[i][j] = strings[data.readInt()];
+            }
+        }
+        final String[] resources = new String[data.readInt()];
+        for (int i = 0; i < resources.length; i++) {
+            resources[i] = strings[data.readInt()];
+        }
+        return new ExportIndex(packages, simpleNames, resources);
+    }
+
+    public int getClassCount() {
+        int count = 0;
+        for (String[] names : simpleNames) {
+            count += names.length;
+        }
+        return count;
+    }
+
+    /**
+     * @return simple names of the exported classes by package, sorted, without creating the class names
+     */
+    public Map<String, List<String>> getPackageClasses() {
+        final Map<String, List<String>> packageClasses = new LinkedHashMap<>((int) (packages.length / 0.75f) + 1);
+        for (int i = 0; i < packages.length; i++) {
+            packageClasses.put(packages[i], Collections.unmodifiableList(Arrays.asList(simpleNames[i])));
+        }
+        return packageClasses;
+    }
+
+    /**
+     * @return exported class names, sorted by package and simple name
+     */
+    public List<String> getClasses() {
+        final List<String> classes = new ArrayList<>(getClassCount());
+        for (int i = 0; i < packages.length; i++) {
+            final String prefix = packages[i].isEmpty() ? "" : packages[i] + ".";
+            for (String name : simpleNames[i]) {
+                classes.add(prefix + name);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return exported resource names, sorted
+     */
+    public List<String> getResources() {
+        return Collections.unmodifiableList(Arrays.asList(resources));
+    }
+
+    private static void intern(final Map<String, Integer> pool, final List<String> strings, final String string) {
+        if (!pool.containsKey(string)) {
+            pool.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+}
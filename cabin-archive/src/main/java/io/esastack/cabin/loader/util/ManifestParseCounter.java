@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the manifests parsed by the archives; a manifest of a jar is kept softly, it's parsed again if collected.
+ */
+public final class ManifestParseCounter {
+
+    private static final LongAdder PARSES = new LongAdder();
+
+    private ManifestParseCounter() {
+    }
+
+    public static void increment() {
+        PARSES.increment();
+    }
+
+    public static long getCount() {
+        return PARSES.sum();
+    }
+}
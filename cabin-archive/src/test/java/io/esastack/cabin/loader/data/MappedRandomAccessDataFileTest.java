@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+public class MappedRandomAccessDataFileTest {
+
+    @Test
+    public void readTest() throws IOException {
+        final byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        final File file = File.createTempFile("cabin-mapped", ".data");
+        file.deleteOnExit();
+        Files.write(file.toPath(), bytes);
+
+        final RandomAccessDataFile pooled = new RandomAccessDataFile(file);
+        //small chunks, so that reads and subsections cross the chunk boundaries
+        final MappedRandomAccessDataFile mapped = new MappedRandomAccessDataFile(file, 16);
+        try {
+            Assert.assertEquals(pooled.getSize(), mapped.getSize());
+            Assert.assertArrayEquals(bytes, read(mapped));
+            Assert.assertArrayEquals(read(pooled.getSubsection(3, 10)), read(mapped.getSubsection(3, 10)));
+            Assert.assertArrayEquals(read(pooled.getSubsection(10, 60)), read(mapped.getSubsection(10, 60)));
+            Assert.assertArrayEquals(read(pooled.getSubsection(10, 60).getSubsection(20, 30)),
+                    read(mapped.getSubsection(10, 60).getSubsection(20, 30)));
+            Assert.assertEquals(0, mapped.getSubsection(100, 0).getSize());
+
+            try (InputStream in = mapped.getSubsection(14, 4).getInputStream(RandomAccessData.ResourceAccess.ONCE)) {
+                Assert.assertEquals(bytes[14] & 0xFF, in.read());
+                Assert.assertEquals(1, in.skip(1));
+                Assert.assertEquals(bytes[16] & 0xFF, in.read());
+                Assert.assertEquals(bytes[17] & 0xFF, in.read());
+                Assert.assertEquals(-1, in.read());
+            }
+        } finally {
+            pooled.close();
+            mapped.close();
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void subsectionOutOfBoundsTest() throws IOException {
+        final File file = File.createTempFile("cabin-mapped", ".data");
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[8]);
+        new MappedRandomAccessDataFile(file).getSubsection(4, 5);
+    }
+
+    private static byte[] read(RandomAccessData data) throws IOException {
+        try (InputStream in = data.getInputStream(RandomAccessData.ResourceAccess.PER_READ)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[7];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
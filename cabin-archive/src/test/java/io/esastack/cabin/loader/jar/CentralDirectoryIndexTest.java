@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.jar;
+
+import io.esastack.cabin.common.constant.Constants;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+public class CentralDirectoryIndexTest {
+
+    @After
+    public void clear() {
+        System.clearProperty(Constants.CABIN_JAR_INDEX_DIR);
+    }
+
+    @Test
+    public void indexTest() throws IOException {
+        final File dir = Files.createTempDirectory("cabin-index").toFile();
+        final File jar = new File(dir, "outer.jar");
+        writeOuterJar(jar);
+        final File indexDir = new File(dir, "index");
+        System.setProperty(Constants.CABIN_JAR_INDEX_DIR, indexDir.getAbsolutePath());
+
+        final List<String> names;
+        final List<String> nestedNames;
+        try (JarFile jarFile = new JarFile(jar)) {
+            names = names(jarFile);
+            nestedNames = names(jarFile.getNestedJarFile(jarFile.getEntry("lib/inner.jar")));
+        }
+        final File rootIndex = CentralDirectoryIndex.of(jar, "").getIndexFile();
+        final File nestedIndex = CentralDirectoryIndex.of(jar, "!/lib/inner.jar").getIndexFile();
+        Assert.assertTrue(rootIndex.isFile());
+        Assert.assertTrue(nestedIndex.isFile());
+        Assert.assertNotEquals(rootIndex, nestedIndex);
+        //the index files are not written again once restored
+        Assert.assertTrue(rootIndex.setLastModified(1000L));
+
+        try (JarFile jarFile = new JarFile(jar)) {
+            Assert.assertEquals(names, names(jarFile));
+            Assert.assertNotNull(jarFile.getEntry("x/Y.class"));
+            final JarFile nested = jarFile.getNestedJarFile(jarFile.getEntry("lib/inner.jar"));
+            Assert.assertEquals(nestedNames, names(nested));
+            Assert.assertNotNull(nested.getEntry("a/B.class"));
+            Assert.assertEquals(1, jarFile.getPackageNames().size());
+        }
+        Assert.assertEquals(1000L, rootIndex.lastModified());
+
+        //a corrupted index file is ignored
+        Files.write(rootIndex.toPath(), new byte[]{1, 2, 3});
+        try (JarFile jarFile = new JarFile(jar)) {
+            Assert.assertEquals(names, names(jarFile));
+        }
+    }
+
+    private static List<String> names(JarFile jarFile) {
+        final List<String> names = new ArrayList<>();
+        final Enumeration<java.util.jar.JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            names.add(entries.nextElement().getName());
+        }
+        return names;
+    }
+
+    private static void writeOuterJar(File file) throws IOException {
+        final ByteArrayOutputStream inner = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(inner)) {
+            out.putNextEntry(new ZipEntry("a/B.class"));
+            out.write(new byte[]{1, 2, 3});
+            out.putNextEntry(new ZipEntry("c.txt"));
+            out.write(new byte[]{4});
+        }
+        final byte[] innerBytes = inner.toByteArray();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("x/Y.class"));
+            out.write(new byte[]{5, 6});
+            final ZipEntry nested = new ZipEntry("lib/inner.jar");
+            nested.setMethod(ZipEntry.STORED);
+            nested.setSize(innerBytes.length);
+            final CRC32 crc = new CRC32();
+            crc.update(innerBytes);
+            nested.setCrc(crc.getValue());
+            out.putNextEntry(nested);
+            out.write(innerBytes);
+        }
+    }
+}
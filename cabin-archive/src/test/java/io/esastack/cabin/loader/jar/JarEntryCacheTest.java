@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.jar;
+
+import io.esastack.cabin.common.constant.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JarEntryCacheTest {
+
+    @Test
+    public void cacheTest() {
+        final JarEntryCache cache = JarEntryCache.create(10, false);
+        Assert.assertEquals(16, cache.capacity());
+        final FileHeader entry = new CentralDirectoryFileHeader();
+        Assert.assertNull(cache.get(3));
+        cache.put(3, entry);
+        Assert.assertSame(entry, cache.get(3));
+
+        final JarEntryCacheStats stats = cache.stats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(1, stats.getMissCount());
+        Assert.assertEquals(0, stats.getEvictionCount());
+        Assert.assertEquals(0.5D, stats.getHitRatio(), 0.0001D);
+
+        cache.clear();
+        Assert.assertNull(cache.get(3));
+    }
+
+    @Test
+    public void boundedTest() {
+        System.setProperty(Constants.CABIN_JAR_ENTRY_CACHE_SIZE, "8");
+        try {
+            final JarEntryCache cache = JarEntryCache.create(100, false);
+            Assert.assertEquals(8, cache.capacity());
+            cache.put(1, new CentralDirectoryFileHeader());
+            cache.put(9, new CentralDirectoryFileHeader());
+            Assert.assertNull(cache.get(1));
+            Assert.assertNotNull(cache.get(9));
+            Assert.assertEquals(1, cache.stats().getEvictionCount());
+
+            //signed jars are not bounded
+            Assert.assertEquals(128, JarEntryCache.create(100, true).capacity());
+        } finally {
+            System.clearProperty(Constants.CABIN_JAR_ENTRY_CACHE_SIZE);
+        }
+    }
+}
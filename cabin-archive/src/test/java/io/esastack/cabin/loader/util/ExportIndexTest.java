@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.loader.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ExportIndexTest {
+
+    @Test
+    public void writeAndReadTest() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportIndex.write(out,
+                Arrays.asList("io.esastack.b.Foo", " io.esastack.a.Foo", "io.esastack.a.Bar$Inner", "Default", " "),
+                Arrays.asList("META-INF/spring.factories", "META-INF/services/a.Service", ""));
+
+        final ExportIndex index = ExportIndex.read(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(4, index.getClassCount());
+        Assert.assertEquals(Arrays.asList("Default", "io.esastack.a.Bar$Inner", "io.esastack.a.Foo",
+                "io.esastack.b.Foo"), index.getClasses());
+        Assert.assertEquals(Arrays.asList("META-INF/services/a.Service", "META-INF/spring.factories"),
+                index.getResources());
+        Assert.assertEquals(Arrays.asList("Bar$Inner", "Foo"), index.getPackageClasses().get("io.esastack.a"));
+        Assert.assertEquals(Collections.singletonList("Default"), index.getPackageClasses().get(""));
+        Assert.assertEquals(index.getClasses(),
+                ExportIndex.of(Arrays.asList("io.esastack.b.Foo", "io.esastack.a.Foo", "io.esastack.a.Bar$Inner",
+                        "Default"), Collections.emptyList()).getClasses());
+    }
+
+    @Test(expected = IOException.class)
+    public void readTextFileTest() throws IOException {
+        ExportIndex.read(new ByteArrayInputStream("io.esastack.a.Foo\n".getBytes()));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.api.service.loader.BizModuleClassLoaderParam;
+import io.esastack.cabin.api.service.loader.ClassLoaderService;
+import io.esastack.cabin.api.service.share.SharedClassService;
+import io.esastack.cabin.container.domain.LibModule;
+import io.esastack.cabin.container.service.CabinServiceManager;
+import io.esastack.cabin.container.service.loader.ClassLoadMetrics;
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
+import joptsimple.OptionParser;
+import org.apache.commons.math3.util.FastMath;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LibModuleClassLoader#loadClass(String)} of a class found by each step of the delegation chain. The module
+ * is made of the commons-math3 jar and loads from the biz classloader, which is made of the jmh-core jar; another
+ * module made of the jopt-simple jar exports a class. The jars are the same one in the shaded benchmarks jar, so the
+ * class loaded from biz at last is synthesized into a directory of the biz classpath only.
+ * Classes defined by other classloaders are never recorded as loaded by the module, so each call walks the chain
+ * down to the measured step. The step is checked with the {@link ClassLoadMetrics} of the module while setting up.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClassLoadDelegationBenchmark {
+
+    private static final String RECORDS_CLASS = FastMath.class.getName();
+
+    private static final String SHARED_CLASS = OptionParser.class.getName();
+
+    private static final String PROVIDED_CLASS = Runner.class.getName();
+
+    private static final String IMPORT_CLASS = "org.openjdk.jmh.runner.options.OptionsBuilder";
+
+    private static final String BIZ_CLASS = "benchmark.biz.BizClass";
+
+    @Param({"records", "jdk", "cabin", "shared", "provided", "import", "biz", "miss"})
+    private String source;
+
+    private File bizDir;
+
+    private LibModuleClassLoader exporterClassLoader;
+
+    private LibModuleClassLoader classLoader;
+
+    private String className;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final ClassLoaderService classLoaderService =
+                CabinServiceManager.get().getService(ClassLoaderService.class);
+        bizDir = Files.createTempDirectory("cabin-benchmark-biz").toFile();
+        writeBizClass(bizDir);
+        classLoaderService.createBizModuleClassLoader(BizModuleClassLoaderParam.newBuilder()
+                .urls(new URL[]{jarOf(Runner.class), bizDir.toURI().toURL()}).build());
+
+        exporterClassLoader = new LibModuleClassLoader("exporter", new URL[]{jarOf(OptionParser.class)});
+        final SharedClassService sharedClassService = CabinServiceManager.get().getService(SharedClassService.class);
+        sharedClassService.addSharedClass(SHARED_CLASS,
+                new LibModule.Builder().name("exporter").classLoader(exporterClassLoader).build());
+        sharedClassService.publishSharedClasses();
+
+        classLoader = new LibModuleClassLoader("benchmark", new URL[]{jarOf(FastMath.class)});
+        classLoader.setLoadFromBizClassLoader(true);
+        classLoader.setProvidedClasses(Collections.singletonList(PROVIDED_CLASS));
+        classLoader.setImportClasses(Collections.singletonList(IMPORT_CLASS));
+        classLoader.setImportPackages(Collections.emptyList());
+        classLoader.setImportResources(Collections.emptyList());
+
+        final ClassLoadMetrics.Source expected = ClassLoadMetrics.Source.valueOf(source.toUpperCase(Locale.ROOT));
+        className = classNameOf(expected);
+        loadClass();
+        classLoader.getClassLoadMetrics().reset();
+        loadClass();
+        if (classLoader.getClassLoadMetrics().getCount(expected) != 1) {
+            throw new IllegalStateException(String.format("Class %s is not loaded by the %s step: %s",
+                    className, source, classLoader.getClassLoadMetrics()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        classLoader.close();
+        exporterClassLoader.close();
+        final File classFile = new File(bizDir, BIZ_CLASS.replace('.', '/') + ".class");
+        for (File file = classFile; file != null && !file.equals(bizDir.getParentFile()); file = file.getParentFile()) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Benchmark
+    public Class<?> loadClass() {
+        try {
+            return classLoader.loadClass(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static String classNameOf(final ClassLoadMetrics.Source source) {
+        switch (source) {
+            case RECORDS:
+                return RECORDS_CLASS;
+            case JDK:
+                return "java.util.concurrent.ConcurrentHashMap";
+            case CABIN:
+                return CabinServiceManager.class.getName();
+            case SHARED:
+                return SHARED_CLASS;
+            case PROVIDED:
+                return PROVIDED_CLASS;
+            case IMPORT:
+                return IMPORT_CLASS;
+            case BIZ:
+                return BIZ_CLASS;
+            case MISS:
+                return "org.apache.commons.math3.util.MissingClass";
+            default:
+                throw new IllegalArgumentException("Unsupported source: " + source);
+        }
+    }
+
+    private static void writeBizClass(final File dir) throws IOException {
+        final ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, BIZ_CLASS.replace('.', '/'), null,
+                "java/lang/Object", null);
+        writer.visitEnd();
+        final File classFile = new File(dir, BIZ_CLASS.replace('.', '/') + ".class");
+        Files.createDirectories(classFile.getParentFile().toPath());
+        Files.write(classFile.toPath(), writer.toByteArray());
+    }
+
+    private static URL jarOf(final Class<?> clazz) throws Exception {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toURI().toURL();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
+import org.apache.commons.math3.util.FastMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Multi-threaded class loading through a {@link LibModuleClassLoader}, compared with a classloader which is not
+ * registered as parallel capable and so serializes all the loading on itself.
+ * The classes are taken from commons-math3, which is a dependency of jmh.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClassLoadingBenchmark {
+
+    private static final int THREADS = 8;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private URL[] urls;
+
+    private String[] classNames;
+
+    private LibModuleClassLoader warmClassLoader;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final File jar = new File(FastMath.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        urls = new URL[]{jar.toURI().toURL()};
+        final List<String> names = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.contains("$") && name.indexOf('/') > 0) {
+                    names.add(name.substring(0, name.length() - 6).replace('/', '.'));
+                }
+            }
+        }
+        warmClassLoader = newClassLoader();
+        final List<String> loaded = new ArrayList<>(names.size());
+        for (String name : names) {
+            try {
+                warmClassLoader.loadClass(name);
+                loaded.add(name);
+            } catch (Throwable ignore) {
+                //classes depending on missing optional dependencies
+            }
+        }
+        classNames = loaded.toArray(new String[0]);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Loading classes which have been loaded, such as Class.forName in reflection heavy frameworks.
+     */
+    @Benchmark
+    @Threads(THREADS)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Class<?> loadLoadedClass() throws ClassNotFoundException {
+        return warmClassLoader.loadClass(classNames[ThreadLocalRandom.current().nextInt(classNames.length)]);
+    }
+
+    /**
+     * Loading all the classes of the jar from a fresh classloader by several threads concurrently.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void loadClassesConcurrently() throws Exception {
+        final LibModuleClassLoader classLoader = newClassLoader();
+        final List<Future<?>> futures = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            final int offset = i;
+            futures.add(executor.submit(() -> {
+                for (int j = offset; j < classNames.length; j += THREADS) {
+                    try {
+                        classLoader.loadClass(classNames[j]);
+                    } catch (Throwable ignore) {
+                        //classes depending on missing optional dependencies
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        classLoader.close();
+    }
+
+    private LibModuleClassLoader newClassLoader() {
+        return parallel ? new LibModuleClassLoader("benchmark", urls) : new SerialClassLoader("benchmark", urls);
+    }
+
+    /**
+     * Not registered as parallel capable, the classloader itself is used as the class loading lock.
+     */
+    private static class SerialClassLoader extends LibModuleClassLoader {
+
+        SerialClassLoader(final String moduleName, final URL[] urls) {
+            super(moduleName, urls);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.common.constant.Constants;
+import io.esastack.cabin.container.CabinContainer;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Time of {@link CabinContainer#start()} of an application synthesized like the cabin-samples one: a biz main which
+ * calls {@link io.esastack.cabin.support.bootstrap.CabinAppBootstrap#run(String[])} and a class of a java agent, with
+ * synthesized lib modules added; each synthesized module exports all its classes and a resource. The container could
+ * be started once in a jvm, so each fork measures a single cold start.
+ */
+@State(Scope.Benchmark)
+@Fork(5)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContainerStartupBenchmark {
+
+    private static final String MAIN_CLASS = "io.esastack.cabin.benchmark.app.BenchmarkApp";
+
+    private static final String AGENT_CLASS = "io.esastack.cabin.benchmark.agent.BenchmarkAgent";
+
+    private static final String BOOTSTRAP_CLASS = "io.esastack.cabin.support.bootstrap.CabinAppBootstrap";
+
+    @Param({"0", "16", "64"})
+    private int modules;
+
+    @Param({"200"})
+    private int classes;
+
+    private File appJar;
+
+    private File agentJar;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        appJar = File.createTempFile("cabin-benchmark-app", ".jar");
+        agentJar = File.createTempFile("cabin-benchmark-agent", ".jar");
+        writeAppJar(appJar);
+        writeAgentJar(agentJar);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(appJar.toPath());
+        Files.deleteIfExists(agentJar.toPath());
+    }
+
+    @Benchmark
+    public CabinContainer start() throws IOException {
+        final CabinContainer container = new CabinContainer(appJar.toURI().toURL().toExternalForm(),
+                new String[]{agentJar.toURI().toURL().toExternalForm()}, new String[]{MAIN_CLASS, "main"});
+        container.start();
+        return container;
+    }
+
+    private void writeAppJar(final File target) throws IOException {
+        final Manifest manifest = manifest();
+        manifest.getMainAttributes().putValue(Constants.MANIFEST_START_CLASS, MAIN_CLASS);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(target), manifest)) {
+            //the container runs from the benchmark classpath, its archive only has to be found
+            putEntry(out, Constants.CABIN_CORE_DIRECTORY + "cabin-core.jar", coreJar(), true);
+            //the biz classes are found by the directory entry
+            putEntry(out, Constants.APP_CLASSES_DIRECTORY, new byte[0], false);
+            putEntry(out, Constants.APP_CLASSES_DIRECTORY + MAIN_CLASS.replace('.', '/') + ".class",
+                    mainClassBytes(), false);
+            for (int i = 0; i < modules; i++) {
+                putEntry(out, Constants.CABIN_MODULE_DIRECTORY + "benchmark-module" + i + ".jar", moduleJar(i), true);
+            }
+        }
+    }
+
+    private static void writeAgentJar(final File target) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(target), manifest())) {
+            putEntry(out, AGENT_CLASS.replace('.', '/') + ".class", agentClassBytes(), false);
+        }
+    }
+
+    private static byte[] coreJar() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new JarOutputStream(bytes, manifest()).close();
+        return bytes.toByteArray();
+    }
+
+    private byte[] moduleJar(final int index) throws IOException {
+        final String artifactId = "benchmark-module" + index;
+        final String packageName = "io.esastack.cabin.benchmark.module" + index;
+        final String resource = artifactId + ".properties";
+        final Manifest manifest = manifest();
+        final Attributes attributes = manifest.getMainAttributes();
+        attributes.putValue(Constants.MANIFEST_MODULE_NAME, "io.esastack_" + artifactId);
+        attributes.putValue(Constants.MANIFEST_MODULE_GROUP_ID, "io.esastack");
+        attributes.putValue(Constants.MANIFEST_MODULE_ARTIFACT_ID, artifactId);
+        attributes.putValue(Constants.MANIFEST_MODULE_VERSION, "0.1.0");
+        attributes.putValue(Constants.MANIFEST_EXPORT_PACKAGES, packageName);
+        attributes.putValue(Constants.MANIFEST_EXPORT_RESOURCES, resource);
+        attributes.putValue(Constants.MANIFEST_LOAD_FROM_BIZ, "true");
+
+        final List<String> classNames = new ArrayList<>(classes);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(bytes, manifest)) {
+            for (int i = 0; i < classes; i++) {
+                final String className = packageName + ".ExportedClass" + i;
+                classNames.add(className);
+                putEntry(out, className.replace('.', '/') + ".class", classBytes(className), false);
+            }
+            putEntry(out, Constants.EXPORTED_CLASS_FILE, lines(classNames), false);
+            putEntry(out, Constants.EXPORTED_RESOURCE_FILE, lines(Collections.singletonList(resource)), false);
+            putEntry(out, Constants.PROVIDED_CLASS_FILE, new byte[0], false);
+            putEntry(out, resource, "benchmark=true".getBytes(StandardCharsets.UTF_8), false);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Manifest manifest() {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        return manifest;
+    }
+
+    /**
+     * public static void main(String[] args) { CabinAppBootstrap.run(args); BenchmarkAgent.echo(); }
+     */
+    private static byte[] mainClassBytes() {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, MAIN_CLASS.replace('.', '/'), null,
+                "java/lang/Object", null);
+        final MethodVisitor main = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main",
+                "([Ljava/lang/String;)V", null, null);
+        main.visitCode();
+        main.visitVarInsn(Opcodes.ALOAD, 0);
+        main.visitMethodInsn(Opcodes.INVOKESTATIC, BOOTSTRAP_CLASS.replace('.', '/'), "run",
+                "([Ljava/lang/String;)V", false);
+        main.visitMethodInsn(Opcodes.INVOKESTATIC, AGENT_CLASS.replace('.', '/'), "echo", "()V", false);
+        main.visitInsn(Opcodes.RETURN);
+        main.visitMaxs(0, 0);
+        main.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * public static void echo() {}
+     */
+    private static byte[] agentClassBytes() {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, AGENT_CLASS.replace('.', '/'), null,
+                "java/lang/Object", null);
+        final MethodVisitor echo = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "echo", "()V",
+                null, null);
+        echo.visitCode();
+        echo.visitInsn(Opcodes.RETURN);
+        echo.visitMaxs(0, 0);
+        echo.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] classBytes(final String className) {
+        final ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, className.replace('.', '/'), null,
+                "java/lang/Object", null);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] lines(final List<String> lines) {
+        return (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Nested jars must be stored without compression.
+     */
+    private static void putEntry(final JarOutputStream out, final String name, final byte[] bytes,
+                                 final boolean stored) throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        if (stored) {
+            final CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(bytes);
+        out.closeEntry();
+    }
+}
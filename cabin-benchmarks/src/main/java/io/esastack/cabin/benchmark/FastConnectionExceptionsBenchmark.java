@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.loader.jar.Handler;
+import io.esastack.cabin.loader.jar.JarFile;
+import org.apache.commons.math3.util.FastMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Probing a missing entry of a cabin jar as {@link java.net.URLClassLoader} does: the thread local flag toggled
+ * around the lookup, the flag carried by the URL handler, and no fast exceptions at all; compared with the direct
+ * lookup used by the module classloaders, which opens no connection.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FastConnectionExceptionsBenchmark {
+
+    private static final String MISSING_ENTRY = "org/apache/commons/math3/util/Missing.class";
+
+    private JarFile jarFile;
+
+    private URL url;
+
+    private URL fastUrl;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        jarFile = new JarFile(new File(FastMath.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        url = jarFile.getUrl();
+        fastUrl = Handler.toFastConnectionExceptionsUrl(url);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        jarFile.close();
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public boolean threadLocalToggle() {
+        Handler.setUseFastConnectionExceptions(true);
+        try {
+            return probe(url);
+        } finally {
+            Handler.setUseFastConnectionExceptions(false);
+        }
+    }
+
+    @Benchmark
+    public boolean handlerScoped() {
+        return probe(fastUrl);
+    }
+
+    @Benchmark
+    public boolean noFastExceptions() {
+        return probe(url);
+    }
+
+    @Benchmark
+    public boolean directLookup() throws IOException {
+        return jarFile.getEntryUrl(MISSING_ENTRY) != null;
+    }
+
+    private static boolean probe(final URL base) {
+        try (InputStream ignored = new URL(base, MISSING_ENTRY).openConnection().getInputStream()) {
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.common.constant.Constants;
+import io.esastack.cabin.loader.jar.JarFile;
+import org.apache.commons.math3.util.FastMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Many threads looking up the class entries of the same nested jar, as a module classloader does while classes are
+ * loaded concurrently. The commons-math3 jar, which is a dependency of jmh, is nested into a fat jar; the cache
+ * size 100 is the capacity of the former synchronized LRU map.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JarEntryCacheBenchmark {
+
+    private static final String NESTED_JAR = "lib/commons-math3.jar";
+
+    @Param({"100", "4096"})
+    private String cacheSize;
+
+    private File fatJar;
+
+    private JarFile rootJarFile;
+
+    private JarFile nestedJarFile;
+
+    private String[] classEntries;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final File jar = new File(FastMath.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        fatJar = File.createTempFile("cabin-benchmark", ".jar");
+        writeFatJar(jar, fatJar);
+
+        System.setProperty(Constants.CABIN_JAR_ENTRY_CACHE_SIZE, cacheSize);
+        try {
+            rootJarFile = new JarFile(fatJar);
+            nestedJarFile = rootJarFile.getNestedJarFile(rootJarFile.getEntry(NESTED_JAR));
+        } finally {
+            System.clearProperty(Constants.CABIN_JAR_ENTRY_CACHE_SIZE);
+        }
+        final List<String> names = new ArrayList<>();
+        final Enumeration<JarEntry> entries = nestedJarFile.entries();
+        while (entries.hasMoreElements()) {
+            final String name = entries.nextElement().getName();
+            if (name.endsWith(".class")) {
+                names.add(name);
+            }
+        }
+        classEntries = names.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println(nestedJarFile.getEntryCacheStats());
+        rootJarFile.close();
+        Files.deleteIfExists(fatJar.toPath());
+    }
+
+    @Benchmark
+    @Threads(16)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ZipEntry getEntry() {
+        return nestedJarFile.getEntry(classEntries[ThreadLocalRandom.current().nextInt(classEntries.length)]);
+    }
+
+    private static void writeFatJar(File nested, File target) throws IOException {
+        final byte[] bytes = Files.readAllBytes(nested.toPath());
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(target))) {
+            //nested jars must be stored without compression
+            final ZipEntry entry = new ZipEntry(NESTED_JAR);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(bytes);
+        }
+    }
+}
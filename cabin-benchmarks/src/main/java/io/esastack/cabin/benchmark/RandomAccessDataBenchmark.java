@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.common.constant.Constants;
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
+import io.esastack.cabin.loader.data.RandomAccessData;
+import io.esastack.cabin.loader.jar.JarFile;
+import org.apache.commons.math3.util.FastMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+
+/**
+ * Reading a cabin jar through the pooled {@link java.io.RandomAccessFile} backend and the memory mapped backend,
+ * selected by {@link Constants#CABIN_JAR_MMAP_ENABLED}. The classes are taken from commons-math3, which is a
+ * dependency of jmh.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RandomAccessDataBenchmark {
+
+    private static final int THREADS = 8;
+
+    @Param({"pooled", "mapped"})
+    private String backend;
+
+    private JarFile jarFile;
+
+    private URL[] urls;
+
+    private JarEntry[] classEntries;
+
+    private String[] classNames;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final File file = new File(FastMath.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        System.setProperty(Constants.CABIN_JAR_MMAP_ENABLED, String.valueOf("mapped".equals(backend)));
+        try {
+            jarFile = new JarFile(file);
+        } finally {
+            System.clearProperty(Constants.CABIN_JAR_MMAP_ENABLED);
+        }
+        urls = new URL[]{jarFile.getUrl()};
+        final List<JarEntry> entries = new ArrayList<>();
+        final Enumeration<JarEntry> enumeration = jarFile.entries();
+        while (enumeration.hasMoreElements()) {
+            final JarEntry entry = enumeration.nextElement();
+            if (entry.getName().endsWith(".class") && entry.getName().indexOf('/') > 0) {
+                entries.add(entry);
+            }
+        }
+        classEntries = entries.toArray(new JarEntry[0]);
+
+        final LibModuleClassLoader classLoader = new LibModuleClassLoader("benchmark", urls);
+        final List<String> names = new ArrayList<>(entries.size());
+        for (JarEntry entry : entries) {
+            final String name = entry.getName();
+            final String className = name.substring(0, name.length() - 6).replace('/', '.');
+            try {
+                classLoader.loadClass(className);
+                names.add(className);
+            } catch (Throwable ignore) {
+                //classes depending on missing optional dependencies
+            }
+        }
+        classLoader.close();
+        classNames = names.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        jarFile.close();
+    }
+
+    /**
+     * Reading the bytes of random class entries by several threads, each read of the pooled backend acquires a
+     * file handle from the pool.
+     */
+    @Benchmark
+    @Threads(THREADS)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long readClassEntry() throws IOException {
+        final JarEntry entry = classEntries[ThreadLocalRandom.current().nextInt(classEntries.length)];
+        long total = 0;
+        final byte[] buffer = new byte[4096];
+        try (InputStream in = jarFile.getInputStream(entry, RandomAccessData.ResourceAccess.PER_READ)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Loading all the classes of the jar from a fresh classloader.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public int loadClasses() throws IOException {
+        final LibModuleClassLoader classLoader = new LibModuleClassLoader("benchmark", urls);
+        int loaded = 0;
+        for (String className : classNames) {
+            try {
+                classLoader.loadClass(className);
+                loaded++;
+            } catch (Throwable ignore) {
+                //classes depending on missing optional dependencies
+            }
+        }
+        classLoader.close();
+        return loaded;
+    }
+}
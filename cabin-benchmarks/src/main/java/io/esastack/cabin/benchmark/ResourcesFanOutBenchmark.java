@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.api.service.share.SharedResourceService;
+import io.esastack.cabin.container.service.CabinServiceManager;
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
+import org.apache.commons.math3.util.FastMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LibModuleClassLoader#getResources(String)} of a resource exported by many modules, as frameworks do while
+ * scanning the manifests or the spring.factories of the classpath. Each module is made of the commons-math3 jar,
+ * which is a dependency of jmh, and exports its manifest.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResourcesFanOutBenchmark {
+
+    private static final String RESOURCE = "META-INF/MANIFEST.MF";
+
+    @Param({"1", "16", "64"})
+    private int modules;
+
+    private final List<LibModuleClassLoader> classLoaders = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final URL[] urls = new URL[]{
+                new File(FastMath.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toURI().toURL()};
+        final SharedResourceService sharedResourceService =
+                CabinServiceManager.get().getService(SharedResourceService.class);
+        for (int i = 0; i < modules; i++) {
+            final LibModuleClassLoader classLoader = new LibModuleClassLoader("module" + i, urls);
+            sharedResourceService.addExportClassLoaders(Collections.singletonList(RESOURCE), classLoader);
+            classLoaders.add(classLoader);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (LibModuleClassLoader classLoader : classLoaders) {
+            classLoader.close();
+        }
+    }
+
+    @Benchmark
+    public int getResources() throws IOException {
+        int count = 0;
+        final Enumeration<URL> resources = classLoaders.get(0).getResources(RESOURCE);
+        while (resources.hasMoreElements()) {
+            resources.nextElement();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public URL getResource() {
+        return classLoaders.get(0).getResource(RESOURCE);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.benchmark;
+
+import io.esastack.cabin.common.exception.CabinLoaderException;
+import io.esastack.cabin.container.domain.LibModule;
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
+import io.esastack.cabin.container.service.share.SharedClassServiceImpl;
+import org.apache.commons.math3.util.FastMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Shared class lookups of the classes exported by lib modules, served by the published routing table. The classes of
+ * the commons-math3 jar,
+ * which is a dependency of jmh, are exported and loaded, together with 100000 synthetic classes never loaded. The
+ * retained heap of all the exported classes is printed while setting up.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SharedClassRoutingBenchmark {
+
+    private static final int MODULES = 20;
+
+    private static final int PACKAGES = 50;
+
+    private static final int CLASSES = 100;
+
+    private SharedClassServiceImpl sharedClassService;
+
+    private String[] loadedNames;
+
+    private String[] unloadedNames;
+
+    private String[] missingNames;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final List<String> jarClasses = new ArrayList<>();
+        final File jar = new File(FastMath.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        try (JarFile jarFile = new JarFile(jar)) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final String name = entries.nextElement().getName();
+                if (name.startsWith("org/apache/commons/math3/") && name.endsWith(".class")) {
+                    jarClasses.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+
+        final long before = usedHeap();
+        sharedClassService = new SharedClassServiceImpl();
+        final LibModule jarModule = new LibModule.Builder().name("commons-math3")
+                .classLoader(new ClassPathModuleClassLoader("commons-math3")).build();
+        jarClasses.forEach(className -> sharedClassService.addSharedClass(className, jarModule));
+        for (int m = 0; m < MODULES; m++) {
+            final LibModule module = new LibModule.Builder().name("module" + m)
+                    .classLoader(new ClassPathModuleClassLoader("module" + m)).build();
+            for (int p = 0; p < PACKAGES; p++) {
+                final String packageName = "io.esastack.benchmark.module" + m + ".pkg" + p;
+                sharedClassService.addSharedPackage(packageName, module);
+                for (int c = 0; c < CLASSES; c++) {
+                    sharedClassService.addSharedClass(packageName + ".ExportedClass" + c, module);
+                }
+            }
+        }
+        sharedClassService.publishSharedClasses();
+        System.out.printf("%nRetained heap of %d exported classes: %d KB%n",
+                sharedClassService.getSharedClassCount(), (usedHeap() - before) / 1024);
+        jarClasses.forEach(sharedClassService::getSharedClass);
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        loadedNames = new String[4096];
+        unloadedNames = new String[4096];
+        missingNames = new String[4096];
+        for (int i = 0; i < loadedNames.length; i++) {
+            loadedNames[i] = new String(jarClasses.get(random.nextInt(jarClasses.size())));
+            final String packageName = "io.esastack.benchmark.module" + random.nextInt(MODULES)
+                    + ".pkg" + random.nextInt(PACKAGES);
+            unloadedNames[i] = packageName + ".ExportedClass" + random.nextInt(CLASSES);
+            missingNames[i] = packageName + ".MissingClass" + random.nextInt(CLASSES);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Class<?> getSharedClass() {
+        return sharedClassService.getSharedClass(loadedNames[ThreadLocalRandom.current().nextInt(loadedNames.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Class<?> getMissingSharedClass() {
+        return sharedClassService.getSharedClass(
+                missingNames[ThreadLocalRandom.current().nextInt(missingNames.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean containsUnloadedClass() {
+        return sharedClassService.containsClass(
+                unloadedNames[ThreadLocalRandom.current().nextInt(unloadedNames.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean containsMissingClass() {
+        return sharedClassService.containsClass(missingNames[ThreadLocalRandom.current().nextInt(missingNames.length)]);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Loads the classes from the classpath of the benchmark, the synthetic classes are never loaded.
+     */
+    private static class ClassPathModuleClassLoader extends LibModuleClassLoader {
+
+        ClassPathModuleClassLoader(final String moduleName) {
+            super(moduleName, new URL[0]);
+        }
+
+        @Override
+        public Class<?> loadClassFromClasspath(final String name) throws CabinLoaderException {
+            try {
+                return Class.forName(name, false, SharedClassRoutingBenchmark.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+    }
+}
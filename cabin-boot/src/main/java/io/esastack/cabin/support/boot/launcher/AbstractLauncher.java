@@ -20,6 +20,7 @@ import io.esastack.cabin.common.util.ClassLoaderUtils;
 import io.esastack.cabin.loader.archive.Archive;
 import io.esastack.cabin.loader.jar.JarFile;
 
+import java.io.File;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.ArrayList;
@@ -66,6 +67,9 @@ public abstract class AbstractLauncher {
             System.setProperty(LAZY_LOAD_EXPORTED_CLASSES_ENABLED, Boolean.toString(lazyLoadExportClass()));
         }
 
+        //derive the class data sharing setup of the container from the jvm options
+        setupClassDataSharing();
+
         //find cabin-core jar archive, and setup cabin container
         final Archive containerArchive = findContainerArchive();
         final ClassLoader cabinClassLoader = createCabinClassLoader(containerArchive);
@@ -81,6 +85,35 @@ public abstract class AbstractLauncher {
         }
     }
 
+    /**
+     * Classes of the module classloaders could be archived only if loaded from the same plain jar files on every
+     * run, the container extracts the nested jars into the dir given by "cabin.cds.dir" for that. The dir defaults
+     * to the parent of the archive file given by -XX:ArchiveClassesAtExit (training run), or by
+     * -XX:SharedArchiveFile if a training run has extracted the jars there.
+     */
+    private void setupClassDataSharing() {
+        final String trainingArchive = ClassLoaderUtils.getInputArgument(JVM_ARCHIVE_CLASSES_AT_EXIT);
+        final String archive = trainingArchive != null
+                ? trainingArchive : ClassLoaderUtils.getInputArgument(JVM_SHARED_ARCHIVE_FILE);
+        if (archive == null) {
+            return;
+        }
+        final String dir = System.getProperty(CABIN_CDS_DIR);
+        if (dir == null || dir.trim().length() == 0) {
+            //the static archive option may list the base archive first, separated by the path separator
+            final String[] archives = archive.split(File.pathSeparator);
+            final File parent = new File(archives[archives.length - 1]).getAbsoluteFile().getParentFile();
+            if (parent == null || (trainingArchive == null && !new File(parent, CDS_JARS_DIRECTORY).isDirectory())) {
+                return;
+            }
+            System.setProperty(CABIN_CDS_DIR, parent.getPath());
+        }
+        final String training = System.getProperty(CABIN_CDS_TRAINING);
+        if (trainingArchive != null && (training == null || training.trim().length() == 0)) {
+            System.setProperty(CABIN_CDS_TRAINING, Boolean.TRUE.toString());
+        }
+    }
+
     private String[] mergeArgs(final String mainClass, final String mainMethod, final String[] args) {
         final String[] arguments = new String[args.length + 2];
         arguments[0] = mainClass;
@@ -23,6 +23,10 @@ import java.net.URLClassLoader;
  */
 public class CabinContainerClassLoader extends URLClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     //Use ext class loader as parent
     public CabinContainerClassLoader(URL[] classpath) {
         super(classpath, ClassLoader.getSystemClassLoader().getParent());
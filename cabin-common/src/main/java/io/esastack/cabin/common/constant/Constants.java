@@ -95,6 +95,8 @@ public final class Constants {
 
     public static final String EXPORTED_RESOURCE_FILE = "conf/export.resources";
 
+    public static final String EXPORT_INDEX_FILE = "conf/export.index";
+
     public static final String URL_JAR_PROTOCOL = "jar";
 
     public static final String URL_FILE_PROTOCOL = "file";
@@ -167,6 +169,44 @@ public final class Constants {
 
     public static final String CABIN_MODULE_DIR_DEFAULT = "cabin_module_dir";
 
+    public static final String CABIN_NEGATIVE_CACHE_ENABLED = "cabin.loader.negative.cache.enable";
+
+    public static final String CABIN_NEGATIVE_CACHE_SIZE = "cabin.loader.negative.cache.size";
+
+    public static final String CABIN_LOCAL_PACKAGE_INDEX_ENABLED = "cabin.loader.local.index.enable";
+
+    public static final String CABIN_LOADER_METRICS_ENABLED = "cabin.loader.metrics.enable";
+
+    public static final String CABIN_MODULE_LOAD_THREADS = "cabin.module.load.threads";
+
+    public static final String CABIN_EXPORT_THREADS = "cabin.export.threads";
+
+    public static final String CABIN_PRELOAD_THREADS = "cabin.export.preload.threads";
+
+    public static final String CABIN_JAR_MMAP_ENABLED = "cabin.jar.mmap.enable";
+
+    public static final String CABIN_JAR_INDEX_DIR = "cabin.jar.index.dir";
+
+    public static final String CABIN_JAR_ENTRY_CACHE_SIZE = "cabin.jar.entry.cache.size";
+
+    public static final String CABIN_STARTUP_TIMELINE_FILE = "cabin.startup.timeline.file";
+
+    public static final String CABIN_STARTUP_TRACE_FILE = "cabin.startup.trace.file";
+
+    public static final String CABIN_CDS_DIR = "cabin.cds.dir";
+
+    public static final String CABIN_CDS_TRAINING = "cabin.cds.training";
+
+    public static final String CDS_JARS_DIRECTORY = "jars";
+
+    public static final String CDS_CLASS_LIST_FILE = "cabin.classlist";
+
+    public static final String CDS_ARCHIVE_FILE = "cabin.jsa";
+
+    public static final String JVM_ARCHIVE_CLASSES_AT_EXIT = "-XX:ArchiveClassesAtExit=";
+
+    public static final String JVM_SHARED_ARCHIVE_FILE = "-XX:SharedArchiveFile=";
+
     public static final String CHARACTER_ANY = "*";
     //------------------------------------SYSTEM PROPERTY CONSTANTS END------------------------------------
 
@@ -71,6 +71,20 @@ public class CabinContainerUtil {
         delegate2CabinContainer("uninstallModule", new Object[] {moduleName});
     }
 
+    /**
+     * @return spans of the container startup as json
+     */
+    public static String getStartupTimelineJson() {
+        return (String) delegate2CabinContainer("getStartupTimelineJson", new Object[0]);
+    }
+
+    /**
+     * @return spans of the container startup in the Chrome trace event format
+     */
+    public static String getStartupTraceJson() {
+        return (String) delegate2CabinContainer("getStartupTraceJson", new Object[0]);
+    }
+
     @SuppressWarnings("unchecked")
     public Map<String, Class<?>> getExportedClasses() {
         return (Map<String, Class<?>>) delegate2CabinContainer("getExportedClasses", new Object[0]);
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.common.util;
+
+import io.esastack.cabin.common.exception.CabinRuntimeException;
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Used by the container boot, which runs the tasks of all the modules on a pool and reports their failures together.
+ */
+public final class CabinFutureUtil {
+
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(CabinFutureUtil.class);
+
+    private CabinFutureUtil() {
+    }
+
+    /**
+     * Wait for all the futures, even if some of them failed. The failures are logged one by one, then thrown by one
+     * exception, whose cause is the first failure in the order of the futures and the others are suppressed.
+     *
+     * @param futures        futures of the tasks by name, such as the module name
+     * @param failureMessage message of the failures, followed by the names of the failed tasks
+     * @return results of the futures, in the order of the futures
+     * @throws CabinRuntimeException if any of the futures failed, or the current thread is interrupted
+     */
+    public static <T> List<T> getAll(final Map<String, ? extends Future<? extends T>> futures,
+                                     final String failureMessage) throws CabinRuntimeException {
+        final List<T> results = new ArrayList<>(futures.size());
+        final Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Future<? extends T>> entry : futures.entrySet()) {
+            try {
+                results.add(entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CabinRuntimeException(e);
+            } catch (ExecutionException e) {
+                LOGGER.error(failureMessage + " " + entry.getKey() + "!", e.getCause());
+                failures.put(entry.getKey(), e.getCause());
+            }
+        }
+        if (!failures.isEmpty()) {
+            final Iterator<Throwable> causes = failures.values().iterator();
+            final CabinRuntimeException ex =
+                    new CabinRuntimeException(failureMessage + " " + failures.keySet(), causes.next());
+            causes.forEachRemaining(ex::addSuppressed);
+            throw ex;
+        }
+        return results;
+    }
+}
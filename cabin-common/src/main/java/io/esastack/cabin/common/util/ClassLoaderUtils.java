@@ -85,10 +85,8 @@ public class ClassLoaderUtils {
      * The java agent premain setup arguments format: -javaagent:{jarpath}[=argsString]
      */
     public static URL[] getAgentClassPath() {
-        final List<String> inputArguments = AccessController.doPrivileged(
-                (PrivilegedAction<List<String>>) () -> ManagementFactory.getRuntimeMXBean().getInputArguments());
         final Set<String> agentPaths = new HashSet<>();
-        for (String argument : inputArguments) {
+        for (String argument : getInputArguments()) {
             if (!argument.startsWith(Constants.JAVA_AGENT_MARK)) {
                 continue;
             }
@@ -103,4 +101,23 @@ public class ClassLoaderUtils {
             }
         }).toArray(URL[]::new);
     }
+
+    /**
+     * @param prefix jvm option with its trailing '=', such as "-XX:SharedArchiveFile="
+     * @return value of the last occurrence of the option, or null if absent
+     */
+    public static String getInputArgument(final String prefix) {
+        String value = null;
+        for (String argument : getInputArguments()) {
+            if (argument.startsWith(prefix)) {
+                value = argument.substring(prefix.length());
+            }
+        }
+        return value;
+    }
+
+    private static List<String> getInputArguments() {
+        return AccessController.doPrivileged(
+                (PrivilegedAction<List<String>>) () -> ManagementFactory.getRuntimeMXBean().getInputArguments());
+    }
 }
@@ -25,7 +25,11 @@ import io.esastack.cabin.container.domain.LibModule;
 import io.esastack.cabin.container.dynamic.DynamicLoadProcessor;
 import io.esastack.cabin.container.initialize.CabinBootContext;
 import io.esastack.cabin.container.initialize.Initializer;
+import io.esastack.cabin.container.initialize.StartupTimeline;
 import io.esastack.cabin.container.service.CabinServiceManager;
+import io.esastack.cabin.container.service.loader.ClassDataSharing;
+import io.esastack.cabin.container.service.loader.ClassLoadMetrics;
+import io.esastack.cabin.container.service.loader.ClassLoadMetricsMXBeanImpl;
 import io.esastack.cabin.loader.archive.Archive;
 import io.esastack.cabin.loader.util.ArchiveUtils;
 import org.slf4j.Logger;
@@ -35,6 +39,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -56,6 +61,9 @@ public class CabinContainer {
 
     private final long startAt = System.currentTimeMillis();
 
+    //the origin of the timeline is the creation of the first container
+    private final StartupTimeline startupTimeline = StartupTimeline.get();
+
     /**
      * instanced by bootstrap, launcher, Test runner;
      * start the container services pipeline to deploy modules, start services;
@@ -132,7 +140,8 @@ public class CabinContainer {
                 .cabinContainer(this)
                 .containerArchive(ArchiveUtils.extractContainerArchive(executableArchive))
                 .moduleUrls(ArchiveUtils.extractModuleURLs(executableArchive))
-                .bizUrls(mergeBizUrlWithLoaderPath(ArchiveUtils.extractBizUrls(executableArchive)))
+                .bizUrls(mergeBizUrlWithLoaderPath(
+                        ClassDataSharing.toStableUrls(ArchiveUtils.extractBizUrls(executableArchive))))
                 .javaAgentUrls(convertString2URLs(javaAgentURLStrings))
                 .arguments(args)
                 .build();
@@ -141,7 +150,11 @@ public class CabinContainer {
     public void start() {
         if (this.started.compareAndSet(false, true)) {
             final long initStartTime = System.currentTimeMillis();
+            final StartupTimeline.Span span =
+                    startupTimeline.start(StartupTimeline.CATEGORY_PROCESSOR, "CabinServiceManager");
             CabinServiceManager.get().init();
+            span.end();
+            ClassDataSharing.logStatus();
             LOGGER.info("CabinServiceManager init cost: " + (System.currentTimeMillis() - initStartTime) + "ms");
             final Initializer initializer = CabinServiceManager.get().getService(Initializer.class);
             initializer.initialize(this.cabinBootContext);
@@ -182,6 +195,36 @@ public class CabinContainer {
         return sharedClassMap;
     }
 
+    public StartupTimeline getStartupTimeline() {
+        return startupTimeline;
+    }
+
+    /**
+     * @return startup timeline as json, see {@link StartupTimeline#toJson()}
+     */
+    public String getStartupTimelineJson() {
+        return startupTimeline.toJson();
+    }
+
+    /**
+     * @return startup timeline in the Chrome trace event format
+     */
+    public String getStartupTraceJson() {
+        return startupTimeline.toChromeTrace();
+    }
+
+    /**
+     * @return class loading metrics of the biz, lib modules and java agents, keyed by module name
+     */
+    public Map<String, ClassLoadMetrics> getClassLoadMetrics() {
+        final ClassLoaderService classLoaderService = CabinServiceManager.get().getService(ClassLoaderService.class);
+        if (classLoaderService == null) {
+            return Collections.emptyMap();
+        }
+        return new ClassLoadMetricsMXBeanImpl(classLoaderService,
+                CabinServiceManager.get().getService(LibModuleLoadService.class)).getMetrics();
+    }
+
     public boolean moduleLoaded(final String moduleName) {
         if (CabinStringUtil.isBlank(moduleName)) {
             return false;
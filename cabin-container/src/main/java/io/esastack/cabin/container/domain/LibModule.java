@@ -17,6 +17,7 @@ package io.esastack.cabin.container.domain;
 
 import io.esastack.cabin.api.domain.Module;
 import io.esastack.cabin.loader.archive.Archive;
+import io.esastack.cabin.loader.util.ExportIndex;
 
 import java.util.List;
 
@@ -36,6 +37,10 @@ public class LibModule implements Module {
 
     private final ClassLoader classLoader;
 
+    private final ModuleDescriptor descriptor;
+
+    private final ExportIndex exportIndex;
+
     private LibModule(final Builder builder) {
         this.name = builder.name;
         this.archive = builder.archive;
@@ -44,6 +49,8 @@ public class LibModule implements Module {
         this.importInfo = builder.importInfo;
         this.classLoader = builder.classLoader;
         this.providedClasses = builder.providedClasses;
+        this.descriptor = builder.descriptor;
+        this.exportIndex = builder.exportIndex;
     }
 
     public static Builder newBuilder() {
@@ -80,6 +87,21 @@ public class LibModule implements Module {
         return providedClasses;
     }
 
+    /**
+     * @return attributes parsed from the manifest of the module, null if the module is not created from an archive
+     */
+    public ModuleDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return classes and resources exported by the module, read once while creating the module; null if the module
+     * has neither the export index nor the export files
+     */
+    public ExportIndex getExportIndex() {
+        return exportIndex;
+    }
+
     @Override
     public int compareTo(final Module o) {
         return this.priority - ((LibModule) o).priority;
@@ -102,6 +124,10 @@ public class LibModule implements Module {
 
         private ClassLoader classLoader;
 
+        private ModuleDescriptor descriptor;
+
+        private ExportIndex exportIndex;
+
         public Builder name(final String name) {
             this.name = name;
             return this;
@@ -137,6 +163,16 @@ public class LibModule implements Module {
             return this;
         }
 
+        public Builder descriptor(final ModuleDescriptor descriptor) {
+            this.descriptor = descriptor;
+            return this;
+        }
+
+        public Builder exportIndex(final ExportIndex exportIndex) {
+            this.exportIndex = exportIndex;
+            return this;
+        }
+
         public LibModule build() {
             return new LibModule(this);
         }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.domain;
+
+import io.esastack.cabin.common.util.CabinStringUtil;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_EXPORT_CLASSES;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_EXPORT_JARS;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_EXPORT_PACKAGES;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_IMPORT_CLASSES;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_IMPORT_PACKAGES;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_IMPORT_RESOURCES;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_LOAD_FROM_BIZ;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_MODULE_PRIORITY;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_MODULE_VERSION;
+
+/**
+ * Immutable attributes of a lib module, parsed once from the manifest and the conf files of the module archive.
+ * The list attributes are the comma separated values of the manifest as is, blank values are filtered by
+ * {@link ExportInfo} and {@link ImportInfo}.
+ */
+public final class ModuleDescriptor {
+
+    public static final int DEFAULT_PRIORITY = 100;
+
+    private final String version;
+
+    private final int priority;
+
+    private final List<String> exportClasses;
+
+    private final List<String> exportPackages;
+
+    private final List<String> exportJars;
+
+    private final List<String> importClasses;
+
+    private final List<String> importPackages;
+
+    private final List<String> importResources;
+
+    private final boolean loadFromBizClassLoader;
+
+    private final List<String> providedClasses;
+
+    private ModuleDescriptor(final Attributes attributes, final List<String> providedClasses) {
+        this.version = attributes.getValue(MANIFEST_MODULE_VERSION);
+        final String priority = attributes.getValue(MANIFEST_MODULE_PRIORITY);
+        this.priority = CabinStringUtil.isNotBlank(priority) ? Integer.parseInt(priority) : DEFAULT_PRIORITY;
+        this.exportClasses = split(attributes.getValue(MANIFEST_EXPORT_CLASSES));
+        this.exportPackages = split(attributes.getValue(MANIFEST_EXPORT_PACKAGES));
+        this.exportJars = split(attributes.getValue(MANIFEST_EXPORT_JARS));
+        this.importClasses = split(attributes.getValue(MANIFEST_IMPORT_CLASSES));
+        this.importPackages = split(attributes.getValue(MANIFEST_IMPORT_PACKAGES));
+        this.importResources = split(attributes.getValue(MANIFEST_IMPORT_RESOURCES));
+        final String loadFromBiz = attributes.getValue(MANIFEST_LOAD_FROM_BIZ);
+        this.loadFromBizClassLoader = CabinStringUtil.isNotBlank(loadFromBiz) && Boolean.parseBoolean(loadFromBiz);
+        this.providedClasses = Collections.unmodifiableList(providedClasses);
+    }
+
+    /**
+     * @param manifest manifest of the module archive, null if absent
+     * @param providedClasses classes of conf/provided_classes
+     */
+    public static ModuleDescriptor of(final Manifest manifest, final List<String> providedClasses) {
+        final Attributes attributes = manifest == null ? null : manifest.getMainAttributes();
+        return new ModuleDescriptor(attributes == null ? new Attributes() : attributes, providedClasses);
+    }
+
+    public ExportInfo toExportInfo() {
+        final ExportInfo exportInfo = new ExportInfo();
+        exportInfo.addClasses(exportClasses);
+        exportInfo.addPackages(exportPackages);
+        exportInfo.addJars(exportJars);
+        return exportInfo;
+    }
+
+    public ImportInfo toImportInfo() {
+        final ImportInfo importInfo = new ImportInfo();
+        importInfo.addClasses(importClasses);
+        importInfo.addPackages(importPackages);
+        importInfo.addImportResources(importResources);
+        importInfo.setLoadFromBizClassLoader(loadFromBizClassLoader);
+        return importInfo;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public List<String> getExportClasses() {
+        return exportClasses;
+    }
+
+    public List<String> getExportPackages() {
+        return exportPackages;
+    }
+
+    public List<String> getExportJars() {
+        return exportJars;
+    }
+
+    public List<String> getImportClasses() {
+        return importClasses;
+    }
+
+    public List<String> getImportPackages() {
+        return importPackages;
+    }
+
+    public List<String> getImportResources() {
+        return importResources;
+    }
+
+    public boolean isLoadFromBizClassLoader() {
+        return loadFromBizClassLoader;
+    }
+
+    public List<String> getProvidedClasses() {
+        return providedClasses;
+    }
+
+    private static List<String> split(final String value) {
+        if (CabinStringUtil.isBlank(value)) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(value.split(",")));
+    }
+}
@@ -7,6 +7,7 @@ import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
 import io.esastack.cabin.container.processor.LibModuleExportProcessor;
 import io.esastack.cabin.container.processor.LibModuleMergeProcessor;
+import io.esastack.cabin.container.service.loader.NegativeLookupCache;
 import io.esastack.cabin.loader.archive.Archive;
 import org.slf4j.Logger;
 
@@ -61,6 +62,9 @@ public class DynamicLoadProcessorImpl implements DynamicLoadProcessor {
             int countC = libModuleExportService.exportClasses(module.getName());
             LOGGER.info("Dynamic load module {}, exported {} classes and {} resources", moduleJarUrl, countC, countR);
         }
+        libModuleExportService.publishExports();
+        //classes and resources missed before may be found in the new modules now.
+        NegativeLookupCache.invalidateAll();
     }
 
     /**
@@ -71,6 +75,7 @@ public class DynamicLoadProcessorImpl implements DynamicLoadProcessor {
     public void uninstallModule(String moduleName) {
         libModuleExportService.destroyModule(moduleName);
         final Module module = libModuleLoadService.destroyModule(moduleName);
+        NegativeLookupCache.invalidateAll();
         if (module == null) {
             LOGGER.info("Module {} does not exist in current cabin container!", moduleName);
         }
@@ -15,17 +15,25 @@
  */
 package io.esastack.cabin.container.initialize;
 
-import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.common.util.CabinThreadFactory;
 import io.esastack.cabin.container.processor.*;
 import io.esastack.cabin.container.service.CabinServiceManager;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * We have to load biz first, because the biz classloader is used to init module classloader
+ * The processors are scheduled by their dependencies, the independent ones run concurrently on a boot pool; the
+ * timeline spans of the processors are kept as the boot stages.
+ * The java agents, the biz and the lib modules are loaded concurrently, a lib module classloader only finds the biz
+ * classloader while loading classes, never while created. The lib modules are loaded after merged; the exports wait
+ * for the lib modules, the biz and the java agents, since preloading the exported classes may delegate to all of
+ * them; the container state is exported after the exports published, the biz setup runs last.
  */
 public class DefaultInitializer implements Initializer {
 
@@ -33,8 +41,15 @@ public class DefaultInitializer implements Initializer {
 
     private final List<Processor> bootProcessors = new ArrayList<>();
 
+    private final ProcessorScheduler scheduler;
+
+    private final Processor setupProcessor;
+
+    private volatile List<StartupTimeline.Span> stages = Collections.emptyList();
+
     /**
-     * BizModuleSetupProcessor must be the last processor, because it may block the thread.
+     * BizModuleSetupProcessor must be the last processor, because it may block the thread; it runs on the thread
+     * initializing, after all the other processors finished.
      */
     public DefaultInitializer() {
         this.bootProcessors.add(CabinServiceManager.get().getService(JavaAgentModuleLoadProcessor.class));
@@ -43,25 +58,31 @@ public class DefaultInitializer implements Initializer {
         this.bootProcessors.add(CabinServiceManager.get().getService(LibModuleLoadProcessor.class));
         this.bootProcessors.add(CabinServiceManager.get().getService(LibModuleExportProcessor.class));
         this.bootProcessors.add(CabinServiceManager.get().getService(ContainerStateExportProcessor.class));
-        this.bootProcessors.add(CabinServiceManager.get().getService(BizModuleSetupProcessor.class));
+        this.scheduler = new ProcessorScheduler(bootProcessors);
+        this.setupProcessor = CabinServiceManager.get().getService(BizModuleSetupProcessor.class);
     }
 
     @Override
     public void initialize(final CabinBootContext context) {
-        for (Processor processor : bootProcessors) {
-            try {
-                if (LOGGER.isInfoEnabled()) {
-                    LOGGER.info("Start to process " + processor.getClass().getName());
-                }
-                final long startTime = System.currentTimeMillis();
-                processor.process(context);
-                if (LOGGER.isInfoEnabled()) {
-                    LOGGER.info("Finished to process " + processor.getClass().getName() +
-                            ", cost: " + (System.currentTimeMillis() - startTime) + "ms");
-                }
-            } catch (Throwable e) {
-                throw new CabinRuntimeException(e);
-            }
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(bootProcessors.size(), new CabinThreadFactory("CabinBootThread"));
+        final List<StartupTimeline.Span> result;
+        try {
+            result = new ArrayList<>(scheduler.run(context, executor));
+        } finally {
+            executor.shutdownNow();
         }
+        stages = Collections.unmodifiableList(new ArrayList<>(result));
+        LOGGER.info("Boot stages: " + result);
+
+        result.add(ProcessorScheduler.runStage(setupProcessor, context));
+        stages = Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return {@link StartupTimeline} spans of the finished processors, in the order they finished
+     */
+    public List<StartupTimeline.Span> getStages() {
+        return stages;
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.initialize;
+
+import io.esastack.cabin.common.exception.CabinRuntimeException;
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.container.processor.Processor;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the boot processors as a DAG of their {@link Processor#getDependencies()}: a processor is started on the
+ * executor as soon as all its dependencies finished, so independent processors overlap.
+ * Dependents of a failed processor are never started; the first failure, in the order of the dependencies, is thrown
+ * after all the started processors finished.
+ */
+class ProcessorScheduler {
+
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(ProcessorScheduler.class);
+
+    private final List<Processor> processors;
+
+    /**
+     * @param processors processors in any order, independent processors are started in this order
+     * @throws CabinRuntimeException if a dependency is not one of the processors, or the dependencies are cyclic
+     */
+    ProcessorScheduler(final List<Processor> processors) throws CabinRuntimeException {
+        this.processors = sort(processors);
+    }
+
+    /**
+     * @return timeline spans of the processors, in the order they finished
+     */
+    List<StartupTimeline.Span> run(final CabinBootContext context, final Executor executor)
+            throws CabinRuntimeException {
+        final ConcurrentLinkedQueue<StartupTimeline.Span> stages = new ConcurrentLinkedQueue<>();
+        final Map<Class<?>, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (Processor processor : processors) {
+            final List<Class<? extends Processor>> dependencies = processor.getDependencies();
+            final CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencies.size()];
+            for (int i = 0; i < dependencyFutures.length; i++) {
+                dependencyFutures[i] = futures.get(dependencies.get(i));
+            }
+            futures.put(processor.getClass(), CompletableFuture.allOf(dependencyFutures)
+                    .thenRunAsync(() -> stages.add(runStage(processor, context)), executor));
+        }
+
+        Throwable failure = null;
+        for (CompletableFuture<Void> future : futures.values()) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure instanceof CabinRuntimeException
+                    ? (CabinRuntimeException) failure : new CabinRuntimeException(failure);
+        }
+        return new ArrayList<>(stages);
+    }
+
+    /**
+     * Run a processor on the current thread, the failure is wrapped into {@link CabinRuntimeException}.
+     *
+     * @return the ended timeline span of the processor
+     */
+    static StartupTimeline.Span runStage(final Processor processor, final CabinBootContext context) {
+        final String name = processor.getClass().getSimpleName();
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Start to process " + processor.getClass().getName());
+        }
+        final StartupTimeline.Span span = StartupTimeline.get().start(StartupTimeline.CATEGORY_PROCESSOR, name);
+        try {
+            processor.process(context);
+        } catch (Throwable e) {
+            LOGGER.error("Failed to process " + processor.getClass().getName(), e);
+            throw new CabinRuntimeException(e);
+        } finally {
+            span.end();
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Finished to process " + processor.getClass().getName() +
+                    ", cost: " + TimeUnit.NANOSECONDS.toMillis(span.getDurationNanos()) + "ms");
+        }
+        return span;
+    }
+
+    /**
+     * Topological sort, stable to the given order.
+     */
+    private static List<Processor> sort(final List<Processor> processors) {
+        final Map<Class<?>, Processor> byClass = new HashMap<>();
+        for (Processor processor : processors) {
+            byClass.put(processor.getClass(), processor);
+        }
+        final List<Processor> pending = new ArrayList<>(processors);
+        final List<Processor> sorted = new ArrayList<>(processors.size());
+        final Set<Class<?>> scheduled = new HashSet<>();
+        while (!pending.isEmpty()) {
+            boolean progressed = false;
+            for (int i = 0; i < pending.size(); i++) {
+                final Processor processor = pending.get(i);
+                boolean ready = true;
+                for (Class<? extends Processor> dependency : processor.getDependencies()) {
+                    if (!byClass.containsKey(dependency)) {
+                        throw new CabinRuntimeException(String.format("Dependency %s of %s is not a boot processor",
+                                dependency.getName(), processor.getClass().getName()));
+                    }
+                    ready &= scheduled.contains(dependency);
+                }
+                if (ready) {
+                    sorted.add(processor);
+                    scheduled.add(processor.getClass());
+                    pending.remove(i--);
+                    progressed = true;
+                }
+            }
+            if (!progressed) {
+                throw new CabinRuntimeException("Cyclic dependencies among boot processors: " + pending);
+            }
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.initialize;
+
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.common.util.CabinStringUtil;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static io.esastack.cabin.common.constant.Constants.CABIN_STARTUP_TIMELINE_FILE;
+import static io.esastack.cabin.common.constant.Constants.CABIN_STARTUP_TRACE_FILE;
+
+/**
+ * Spans of the container startup: processors, module discovery, module creation, exports, preloading and the time
+ * to the biz main. A span is added once ended, the nanos are relative to the start of the jvm, so the time to the
+ * biz main includes the jvm startup and the launcher.
+ * The timeline is written as json and as a Chrome trace (chrome://tracing, Perfetto) to the files configured by
+ * {@link io.esastack.cabin.common.constant.Constants#CABIN_STARTUP_TIMELINE_FILE} and
+ * {@link io.esastack.cabin.common.constant.Constants#CABIN_STARTUP_TRACE_FILE} before the biz main runs.
+ */
+public final class StartupTimeline {
+
+    public static final String CATEGORY_PROCESSOR = "processor";
+
+    public static final String CATEGORY_DISCOVERY = "discovery";
+
+    public static final String CATEGORY_MODULE = "module";
+
+    public static final String CATEGORY_EXPORT = "export";
+
+    public static final String CATEGORY_BIZ = "biz";
+
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(StartupTimeline.class);
+
+    private static final StartupTimeline INSTANCE = new StartupTimeline();
+
+    //the jvm start time has only a millisecond precision, the uptime is converted to the clock of System.nanoTime
+    private final long originNanos =
+            System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+
+    private StartupTimeline() {
+    }
+
+    public static StartupTimeline get() {
+        return INSTANCE;
+    }
+
+    public Span start(final String category, final String name) {
+        return start(category, name, null);
+    }
+
+    /**
+     * @param module name of the module the span is about, null if none
+     */
+    public Span start(final String category, final String name, final String module) {
+        return new Span(category, name, module, System.nanoTime());
+    }
+
+    /**
+     * Record a span from the start of the jvm to now, such as the time to the biz main.
+     */
+    public Span sinceOrigin(final String category, final String name) {
+        final Span span = new Span(category, name, null, originNanos);
+        span.end();
+        return span;
+    }
+
+    /**
+     * @return ended spans, ordered by start
+     */
+    public List<Span> getSpans() {
+        final List<Span> result = new ArrayList<>(spans);
+        result.sort(Comparator.comparingLong(span -> span.startNanos));
+        return Collections.unmodifiableList(result);
+    }
+
+    public String toJson() {
+        final StringBuilder json = new StringBuilder("{\"spans\":[");
+        boolean first = true;
+        for (Span span : getSpans()) {
+            json.append(first ? "" : ",").append("{\"category\":").append(quote(span.category))
+                    .append(",\"name\":").append(quote(span.name))
+                    .append(",\"module\":").append(span.module == null ? "null" : quote(span.module))
+                    .append(",\"thread\":").append(quote(span.thread))
+                    .append(",\"startNanos\":").append(span.getStartNanos())
+                    .append(",\"durationNanos\":").append(span.getDurationNanos())
+                    .append(",\"counts\":");
+            appendCounts(json, span.getCounts());
+            json.append('}');
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * @return complete events of the Trace Event Format, one trace thread per startup thread
+     */
+    public String toChromeTrace() {
+        final StringBuilder json = new StringBuilder("{\"traceEvents\":[");
+        final Map<String, Integer> threadIds = new HashMap<>();
+        for (Span span : getSpans()) {
+            Integer tid = threadIds.get(span.thread);
+            if (tid == null) {
+                tid = threadIds.size() + 1;
+                threadIds.put(span.thread, tid);
+                json.append(tid == 1 ? "" : ",").append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":")
+                        .append(tid).append(",\"args\":{\"name\":").append(quote(span.thread)).append("}}");
+            }
+            json.append(",{\"name\":").append(quote(span.module == null ? span.name : span.name + " " + span.module))
+                    .append(",\"cat\":").append(quote(span.category))
+                    .append(",\"ph\":\"X\",\"pid\":1,\"tid\":").append(tid)
+                    .append(",\"ts\":").append(toMicros(span.getStartNanos()))
+                    .append(",\"dur\":").append(toMicros(span.getDurationNanos()))
+                    .append(",\"args\":");
+            appendCounts(json, span.getCounts());
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Write the timeline to the configured files, failures are logged only.
+     */
+    public void dump() {
+        dump(System.getProperty(CABIN_STARTUP_TIMELINE_FILE), toJson());
+        dump(System.getProperty(CABIN_STARTUP_TRACE_FILE), toChromeTrace());
+    }
+
+    private static void dump(final String file, final String content) {
+        if (CabinStringUtil.isBlank(file)) {
+            return;
+        }
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(Paths.get(file)),
+                StandardCharsets.UTF_8)) {
+            writer.write(content);
+            LOGGER.info("Startup timeline is written to " + file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write startup timeline to " + file, e);
+        }
+    }
+
+    private static void appendCounts(final StringBuilder json, final Map<String, Long> counts) {
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            json.append(first ? "" : ",").append(quote(entry.getKey())).append(':').append(entry.getValue());
+            first = false;
+        }
+        json.append('}');
+    }
+
+    private static String toMicros(final long nanos) {
+        return String.format("%d.%03d", nanos / 1000, nanos % 1000);
+    }
+
+    private static String quote(final String value) {
+        final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    public final class Span {
+
+        private final String category;
+
+        private final String name;
+
+        private final String module;
+
+        private final String thread = Thread.currentThread().getName();
+
+        private final long startNanos;
+
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+
+        private volatile long endNanos;
+
+        private Span(final String category, final String name, final String module, final long startNanos) {
+            this.category = category;
+            this.name = name;
+            this.module = module;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * @param key such as classes, jars, resources
+         */
+        public synchronized Span count(final String key, final long value) {
+            counts.put(key, value);
+            return this;
+        }
+
+        /**
+         * End the span and add it into the timeline, a span should be ended once.
+         */
+        public void end() {
+            endNanos = System.nanoTime();
+            spans.add(this);
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getModule() {
+            return module;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * @return nanos since the origin of the timeline
+         */
+        public long getStartNanos() {
+            return startNanos - originNanos;
+        }
+
+        public long getDurationNanos() {
+            return endNanos - startNanos;
+        }
+
+        public synchronized Map<String, Long> getCounts() {
+            return new LinkedHashMap<>(counts);
+        }
+
+        @Override
+        public String toString() {
+            return category + "/" + name + (module == null ? "" : "[" + module + "]") + "{thread=" + thread
+                    + ", cost=" + getDurationNanos() / 1000000 + "ms" + (counts.isEmpty() ? "" : ", " + getCounts())
+                    + "}";
+        }
+    }
+}
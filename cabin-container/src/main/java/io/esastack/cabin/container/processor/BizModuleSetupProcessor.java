@@ -20,6 +20,7 @@ import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.util.RelaunchMarkUtil;
 import io.esastack.cabin.container.domain.BizModule;
 import io.esastack.cabin.container.initialize.CabinBootContext;
+import io.esastack.cabin.container.initialize.StartupTimeline;
 
 public class BizModuleSetupProcessor implements Processor {
 
@@ -27,6 +28,9 @@ public class BizModuleSetupProcessor implements Processor {
 
     public void process(final CabinBootContext cabinBootContext) throws CabinRuntimeException {
         final BizModule bizModule = bizModuleLoadService.getModule();
+        //the main may never return, the timeline is written before it runs
+        StartupTimeline.get().sinceOrigin(StartupTimeline.CATEGORY_BIZ, "timeToMain");
+        StartupTimeline.get().dump();
         try {
             //mark the RelaunchMarkUtil's state of the biz classloader, before the main() re-run
             RelaunchMarkUtil.markAsLaunched(bizModule.getClassLoader());
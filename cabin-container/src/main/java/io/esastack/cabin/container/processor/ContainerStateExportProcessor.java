@@ -15,14 +15,18 @@
  */
 package io.esastack.cabin.container.processor;
 
+import io.esastack.cabin.api.service.deploy.LibModuleLoadService;
 import io.esastack.cabin.api.service.loader.ClassLoaderService;
 import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
 import io.esastack.cabin.common.util.CabinContainerUtil;
 import io.esastack.cabin.container.initialize.CabinBootContext;
+import io.esastack.cabin.container.service.loader.ClassLoadMetricsMXBeanImpl;
 import org.slf4j.Logger;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
 
 public class ContainerStateExportProcessor implements Processor {
 
@@ -30,6 +34,8 @@ public class ContainerStateExportProcessor implements Processor {
 
     private volatile ClassLoaderService classLoaderService;
 
+    private volatile LibModuleLoadService libModuleLoadService;
+
     @Override
     public void process(final CabinBootContext cabinBootContext) throws CabinRuntimeException {
         final ClassLoader bizClassloader = classLoaderService.getBizModuleClassLoader();
@@ -48,9 +54,22 @@ public class ContainerStateExportProcessor implements Processor {
             LOGGER.error(msg, throwable);
             throw new CabinRuntimeException(msg, throwable);
         }
+        new ClassLoadMetricsMXBeanImpl(classLoaderService, libModuleLoadService).register();
+    }
+
+    /**
+     * Classes loaded by the biz classloader may be looked up from the exports, which must be published before.
+     */
+    @Override
+    public List<Class<? extends Processor>> getDependencies() {
+        return Collections.singletonList(LibModuleExportProcessor.class);
     }
 
     public void setClassLoaderService(final ClassLoaderService service) {
         classLoaderService = service;
     }
+
+    public void setLibModuleLoadService(final LibModuleLoadService service) {
+        libModuleLoadService = service;
+    }
 }
@@ -20,15 +20,32 @@ import io.esastack.cabin.api.service.deploy.LibModuleLoadService;
 import io.esastack.cabin.api.service.share.LibModuleExportService;
 import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.common.util.CabinFutureUtil;
+import io.esastack.cabin.common.util.CabinThreadFactory;
 import io.esastack.cabin.container.initialize.CabinBootContext;
+import io.esastack.cabin.container.initialize.StartupTimeline;
+import io.esastack.cabin.container.service.loader.AbstractClassLoader;
+import io.esastack.cabin.container.service.loader.NegativeLookupCache;
 import io.esastack.cabin.container.service.share.LazyLoadExportDetector;
 import io.esastack.cabin.container.service.share.LibModuleExportServiceImpl;
 import org.slf4j.Logger;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static io.esastack.cabin.common.constant.Constants.CABIN_EXPORT_THREADS;
+
+/**
+ * Exports the lib modules and preloads the exported classes on one bounded pool, sized by
+ * {@link io.esastack.cabin.common.constant.Constants#CABIN_EXPORT_THREADS}, the available processors by default.
+ * The failures of all the modules are reported together, after all the modules have been exported.
+ */
 public class LibModuleExportProcessor implements Processor {
 
     private static final Logger LOGGER = CabinLoggerFactory.getLogger(LibModuleExportProcessor.class);
@@ -39,42 +56,80 @@ public class LibModuleExportProcessor implements Processor {
 
     public void process(final CabinBootContext cabinBootContext) throws CabinRuntimeException {
         final List<Module> modules = libModuleLoadService.getAllModules();
-        final AtomicReference<Throwable> exportError = new AtomicReference<>();
-        if (modules != null && modules.size() > 0) {
-            final CountDownLatch latch = new CountDownLatch(modules.size());
-            int threadIndex = 1;
-            for (Module module : modules) {
-                new Thread(() -> {
-                    try {
-                        int count = libModuleExportService.exportResources(module.getName());
-                        LOGGER.info("Exported {} resources from module {}", count, module.getName());
-                        count = libModuleExportService.exportClasses(module.getName());
-                        LOGGER.info("Exported {} classes from module {}", count, module.getName());
-                    } catch (Throwable ex) {
-                        exportError.set(ex);
-                        LOGGER.error("Failed to export module!", ex);
-                    } finally {
-                        latch.countDown();
-                    }
-                }, "LibModuleExportThread-" + threadIndex++).start();
-            }
-            try {
-                latch.await();
-            } catch (InterruptedException e) {
-                throw new CabinRuntimeException(e);
-            }
-            if (exportError.get() != null) {
-                throw new CabinRuntimeException("Failed to load classes and resources from module!", exportError.get());
-            }
+        if (modules == null || modules.isEmpty()) {
+            return;
+        }
+        final int threads = Math.max(1,
+                Integer.getInteger(CABIN_EXPORT_THREADS, Runtime.getRuntime().availableProcessors()));
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(threads, new CabinThreadFactory("LibModuleExportThread"));
+        try {
+            long start = System.nanoTime();
+            exportModules(modules, executor);
+            LOGGER.info("Exported {} modules with {} threads in {} ms", modules.size(), threads, elapsedMillis(start));
+
+            final StartupTimeline.Span span = StartupTimeline.get().start(StartupTimeline.CATEGORY_EXPORT, "publish");
+            start = System.nanoTime();
+            libModuleExportService.publishExports();
+            //misses recorded before all the modules exported are not reliable.
+            NegativeLookupCache.invalidateAll();
+            span.count("modules", modules.size()).end();
+            LOGGER.info("Published exports of {} modules in {} ms", modules.size(), elapsedMillis(start));
+
             //preload classes after all lib modules has been exported, avoiding failures caused by:
             // A class extends B class, module of B has not been exported, so loading A class would failed, caused by
             // B class not found.
             if (!LazyLoadExportDetector.isLazyLoad()) {
-                libModuleExportService.preLoadAllSharedClasses();
+                start = System.nanoTime();
+                libModuleExportService.preLoadAllSharedClasses(executor);
+                LOGGER.info("Preloaded shared classes in {} ms", elapsedMillis(start));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (Module module : modules) {
+            if (module.getClassLoader() instanceof AbstractClassLoader) {
+                LOGGER.info("Defined {} packages by module {}",
+                        ((AbstractClassLoader) module.getClassLoader()).getDefinedPackageCount(), module.getName());
             }
         }
     }
 
+    /**
+     * Preloading the exported classes may delegate to the biz and the java agent classloaders.
+     */
+    @Override
+    public List<Class<? extends Processor>> getDependencies() {
+        return Arrays.asList(LibModuleLoadProcessor.class, BizModuleLoadProcessor.class,
+                JavaAgentModuleLoadProcessor.class);
+    }
+
+    private void exportModules(final List<Module> modules, final ExecutorService executor) {
+        final Map<String, Future<?>> futures = new LinkedHashMap<>();
+        for (Module module : modules) {
+            futures.put(module.getName(), executor.submit(() -> {
+                final StartupTimeline.Span span =
+                        StartupTimeline.get().start(StartupTimeline.CATEGORY_EXPORT, "export", module.getName());
+                try {
+                    int count = libModuleExportService.exportResources(module.getName());
+                    LOGGER.info("Exported {} resources from module {}", count, module.getName());
+                    span.count("resources", count);
+                    count = libModuleExportService.exportClasses(module.getName());
+                    LOGGER.info("Exported {} classes from module {}", count, module.getName());
+                    span.count("classes", count);
+                } finally {
+                    span.end();
+                }
+            }));
+        }
+
+        CabinFutureUtil.getAll(futures, "Failed to load classes and resources from module");
+    }
+
+    private static long elapsedMillis(final long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
     public void setLibModuleLoadService(final LibModuleLoadService service) {
         libModuleLoadService = service;
     }
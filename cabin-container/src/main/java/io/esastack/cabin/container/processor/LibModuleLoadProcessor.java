@@ -17,19 +17,54 @@ package io.esastack.cabin.container.processor;
 
 import io.esastack.cabin.api.service.deploy.LibModuleLoadService;
 import io.esastack.cabin.common.exception.CabinRuntimeException;
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.common.util.CabinThreadFactory;
 import io.esastack.cabin.container.initialize.CabinBootContext;
 import io.esastack.cabin.loader.archive.Archive;
+import io.esastack.cabin.loader.util.ManifestParseCounter;
+import org.slf4j.Logger;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import static io.esastack.cabin.common.constant.Constants.CABIN_MODULE_LOAD_THREADS;
+
+/**
+ * Creates the lib modules on a bounded pool, sized by
+ * {@link io.esastack.cabin.common.constant.Constants#CABIN_MODULE_LOAD_THREADS}, the available processors by default.
+ */
 public class LibModuleLoadProcessor implements Processor {
 
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(LibModuleLoadProcessor.class);
+
     private volatile LibModuleLoadService libModuleLoadService;
 
     public void process(final CabinBootContext cabinBootContext) throws CabinRuntimeException {
-        for (Map.Entry<String, Archive> entry : cabinBootContext.getModuleArchives().entrySet()) {
-            libModuleLoadService.loadModule(entry.getKey(), entry.getValue());
+        final Map<String, Archive> archives = cabinBootContext.getModuleArchives();
+        if (archives == null || archives.isEmpty()) {
+            return;
         }
+        final int threads = Math.min(archives.size(), Math.max(1,
+                Integer.getInteger(CABIN_MODULE_LOAD_THREADS, Runtime.getRuntime().availableProcessors())));
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(threads, new CabinThreadFactory("LibModuleLoadThread"));
+        final long start = System.nanoTime();
+        try {
+            libModuleLoadService.loadModules(archives, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        LOGGER.info("Created {} modules with {} threads in {} ms, {} manifests parsed since startup", archives.size(),
+                threads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ManifestParseCounter.getCount());
+    }
+
+    @Override
+    public List<Class<? extends Processor>> getDependencies() {
+        return Collections.singletonList(LibModuleMergeProcessor.class);
     }
 
     public void setLibModuleLoadService(final LibModuleLoadService service) {
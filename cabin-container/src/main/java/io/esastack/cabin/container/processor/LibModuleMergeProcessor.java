@@ -18,7 +18,9 @@ package io.esastack.cabin.container.processor;
 import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
 import io.esastack.cabin.common.util.CabinStringUtil;
+import io.esastack.cabin.common.util.CabinThreadFactory;
 import io.esastack.cabin.container.initialize.CabinBootContext;
+import io.esastack.cabin.container.initialize.StartupTimeline;
 import io.esastack.cabin.loader.archive.Archive;
 import io.esastack.cabin.loader.util.ArchiveUtils;
 import org.slf4j.Logger;
@@ -27,10 +29,16 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static io.esastack.cabin.common.constant.Constants.*;
 
@@ -40,7 +48,8 @@ import static io.esastack.cabin.common.constant.Constants.*;
  * merge modules contained in modules recursively if any;
  * Priority: Container contained modules , biz modules , recursively contained modules;
  * if two modules both contains another module, if the version is the same, use it, or you should put the module in the
- * biz classpath to avoid conflicting
+ * biz classpath to avoid conflicting;
+ * archives are opened and their manifests read on a bounded pool, the results are merged in order on the caller.
  */
 public class LibModuleMergeProcessor implements Processor {
 
@@ -50,22 +59,56 @@ public class LibModuleMergeProcessor implements Processor {
             Boolean.parseBoolean(System.getProperty(CABIN_DUPLICATED_MODULE_IGNORE, "true"));
 
     public void process(final CabinBootContext cabinBootContext) throws CabinRuntimeException {
+        final ExecutorService executor = newExecutor();
         try {
-            final Map<String, Archive> externalModules = parseLibModulesFromExternalDir();
+            StartupTimeline.Span span = startDiscovery("external");
+            final Map<String, Archive> externalModules = parseLibModulesFromExternalDir(executor);
+            endDiscovery(span, externalModules.size());
+
+            span = startDiscovery("container");
             final Map<String, Archive> containerModules =
-                    parseLibModulesFromContainerArchive(cabinBootContext.getContainerArchive());
+                    parseLibModulesFromContainerArchive(cabinBootContext.getContainerArchive(), executor);
+            endDiscovery(span, containerModules.size());
+
+            span = startDiscovery("dependency");
             final Map<String, Archive> modules = parseLibModulesFromURLs(
-                    cabinBootContext.getModuleUrls(), false, false);
+                    cabinBootContext.getModuleUrls(), false, false, executor);
+            endDiscovery(span, modules.size());
+
             //module prioritized: external modules > nest modules > user dependencies
             modules.putAll(containerModules);
             modules.putAll(externalModules);
-            cabinBootContext.setModuleArchives(parseNestLibModulesRecursively(modules));
+            span = startDiscovery("nested");
+            final Map<String, Archive> mergedModules = parseNestLibModulesRecursively(modules, executor);
+            endDiscovery(span, mergedModules.size() - modules.size());
+            cabinBootContext.setModuleArchives(mergedModules);
         } catch (Throwable e) {
             throw new CabinRuntimeException(e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
     public Map<String, Archive> parseLibModulesFromExternalDir() {
+        final ExecutorService executor = newExecutor();
+        try {
+            return parseLibModulesFromExternalDir(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public Map<String, Archive> parseLibModulesFromURLs(
+            final URL[] moduleUrls, final boolean ignoreException, final boolean recursively) throws IOException {
+        final ExecutorService executor = newExecutor();
+        try {
+            return parseLibModulesFromURLs(moduleUrls, ignoreException, recursively, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, Archive> parseLibModulesFromExternalDir(final ExecutorService executor) {
         final String dir = System.getProperty(CABIN_MODULE_DIR, CABIN_MODULE_DIR_DEFAULT);
         if (CabinStringUtil.isNotBlank(dir)) {
             final File file = new File(dir);
@@ -84,7 +127,7 @@ public class LibModuleMergeProcessor implements Processor {
                     }
                     if (urls.size() != 0) {
                         try {
-                            return parseLibModulesFromURLs(urls.toArray(new URL[0]), true, false);
+                            return parseLibModulesFromURLs(urls.toArray(new URL[0]), true, false, executor);
                         } catch (IOException e) {
                             // never common here.
                         }
@@ -95,7 +138,8 @@ public class LibModuleMergeProcessor implements Processor {
         return new HashMap<>();
     }
 
-    private Map<String, Archive> parseLibModulesFromContainerArchive(final Archive containerArchive)
+    private Map<String, Archive> parseLibModulesFromContainerArchive(final Archive containerArchive,
+                                                                     final ExecutorService executor)
             throws IOException {
         final List<Archive> nestModules = containerArchive.getNestedArchives(entry -> !entry.isDirectory() &&
                 entry.getName().startsWith(NESTED_MODULE_DIRECTORY) && entry.getName().endsWith(JAR_FILE_SUFFIX));
@@ -118,14 +162,14 @@ public class LibModuleMergeProcessor implements Processor {
             LOGGER.debug(CabinStringUtil.urlsToString("Cabin container nested modules:", moduleUrls));
         }
 
-        final Map<String, Archive> containerModules = new HashMap<>();
+        final List<Future<String>> moduleNames = new ArrayList<>(nestModules.size());
         for (Archive nestModule : nestModules) {
-            final String moduleName = nestModule.getManifest().getMainAttributes().getValue(MANIFEST_MODULE_NAME);
-            if (CabinStringUtil.isBlank(moduleName)) {
-                throw new CabinRuntimeException("Invalid module Manifest, blank Module-Name, "
-                        + nestModule.getUrl().toExternalForm());
-            }
-            if (containerModules.put(moduleName, nestModule) != null) {
+            moduleNames.add(executor.submit(() -> getModuleName(nestModule)));
+        }
+        final Map<String, Archive> containerModules = new HashMap<>();
+        for (int i = 0; i < nestModules.size(); i++) {
+            final String moduleName = await(moduleNames.get(i));
+            if (containerModules.put(moduleName, nestModules.get(i)) != null) {
                 throw new CabinRuntimeException(
                         String.format("Duplicated module {%s} found in Cabin container archive", moduleName));
             }
@@ -133,25 +177,30 @@ public class LibModuleMergeProcessor implements Processor {
         return containerModules;
     }
 
-    public Map<String, Archive> parseLibModulesFromURLs(
-            final URL[] moduleUrls, final boolean ignoreException, final boolean recursively) throws IOException {
+    private Map<String, Archive> parseLibModulesFromURLs(final URL[] moduleUrls, final boolean ignoreException,
+                                                         final boolean recursively, final ExecutorService executor)
+            throws IOException {
         final Map<String, Archive> urlModules = new HashMap<>();
         if (moduleUrls != null) {
+            final List<Future<Map.Entry<String, Archive>>> archives = new ArrayList<>(moduleUrls.length);
             for (URL moduleUrl : moduleUrls) {
-                try {
+                archives.add(executor.submit(() -> {
                     final Archive module = ArchiveUtils.createArchiveFromUrl(moduleUrl);
-                    final String moduleName = module.getManifest().getMainAttributes().getValue(MANIFEST_MODULE_NAME);
-                    if (CabinStringUtil.isBlank(moduleName)) {
-                        throw new CabinRuntimeException("Invalid module Manifest, blank Module-Name, "
-                                + moduleUrl.toExternalForm());
-                    }
-                    if (urlModules.put(moduleName, module) != null) {
+                    return new AbstractMap.SimpleImmutableEntry<>(getModuleName(module), module);
+                }));
+            }
+            //merged in the order of the urls, as if parsed one by one
+            for (int i = 0; i < moduleUrls.length; i++) {
+                try {
+                    final Map.Entry<String, Archive> module = await(archives.get(i));
+                    final String moduleName = module.getKey();
+                    if (urlModules.put(moduleName, module.getValue()) != null) {
                         throw new CabinRuntimeException(
                                 String.format("Duplicated module {%s} found in biz urls", moduleName));
                     }
                 } catch (Throwable e) {
                     if (ignoreException) {
-                        LOGGER.warn("Failed to parse lib module from " + moduleUrl.toExternalForm());
+                        LOGGER.warn("Failed to parse lib module from " + moduleUrls[i].toExternalForm());
                     } else {
                         throw e;
                     }
@@ -159,27 +208,38 @@ public class LibModuleMergeProcessor implements Processor {
             }
         }
         if (recursively) {
-            return parseNestLibModulesRecursively(urlModules);
+            return parseNestLibModulesRecursively(urlModules, executor);
         }
         return urlModules;
     }
 
-    private Map<String, Archive> parseNestLibModulesRecursively(final Map<String, Archive> modules) throws IOException {
+    /**
+     * The nested modules of each level are opened in parallel, and merged in the same order as if they were opened
+     * one by one, so the precedence and the duplicate detection stay the same.
+     */
+    private Map<String, Archive> parseNestLibModulesRecursively(final Map<String, Archive> modules,
+                                                                final ExecutorService executor) throws IOException {
         final Map<String, Archive> mergedModules = new HashMap<>();
         Map<String, Archive> modules4Check = modules;
         while (modules4Check.size() > 0) {
-            final Map<String, Archive> nestedModules = new HashMap<>();
-            for (Map.Entry<String, Archive> entry : modules4Check.entrySet()) {
-                final Archive archive = entry.getValue();
-                final List<Archive> nestArchives = archive.getNestedArchives(a -> !a.isDirectory() &&
-                        a.getName().startsWith(NESTED_MODULE_DIRECTORY) && a.getName().endsWith(JAR_FILE_SUFFIX));
-                for (Archive nestArchive : nestArchives) {
-                    final String moduleName =
-                            nestArchive.getManifest().getMainAttributes().getValue(MANIFEST_MODULE_NAME);
-                    if (CabinStringUtil.isBlank(moduleName)) {
-                        throw new CabinRuntimeException("Invalid module Manifest, blank Module-Name, "
-                                + nestArchive.getUrl().toExternalForm());
+            final List<Future<List<Map.Entry<String, Archive>>>> levelArchives =
+                    new ArrayList<>(modules4Check.size());
+            for (Archive archive : modules4Check.values()) {
+                levelArchives.add(executor.submit(() -> {
+                    final List<Map.Entry<String, Archive>> nestArchives = new ArrayList<>();
+                    for (Archive nestArchive : archive.getNestedArchives(a -> !a.isDirectory() &&
+                            a.getName().startsWith(NESTED_MODULE_DIRECTORY) && a.getName().endsWith(JAR_FILE_SUFFIX))) {
+                        final String moduleName = getModuleName(nestArchive);
+                        nestArchives.add(new AbstractMap.SimpleImmutableEntry<>(moduleName, nestArchive));
                     }
+                    return nestArchives;
+                }));
+            }
+            final Map<String, Archive> nestedModules = new HashMap<>();
+            for (Future<List<Map.Entry<String, Archive>>> future : levelArchives) {
+                for (Map.Entry<String, Archive> entry : await(future)) {
+                    final String moduleName = entry.getKey();
+                    final Archive nestArchive = entry.getValue();
                     if (modules.containsKey(moduleName)) {
                         LOGGER.info("Duplicated module named {} found, URL {}(imported by biz url) would be used," +
                                         " {} is ignored!",
@@ -208,5 +268,51 @@ public class LibModuleMergeProcessor implements Processor {
         mergedModules.putAll(modules);
         return mergedModules;
     }
-}
 
+    private static String getModuleName(final Archive module) throws IOException {
+        final String moduleName = module.getManifest().getMainAttributes().getValue(MANIFEST_MODULE_NAME);
+        if (CabinStringUtil.isBlank(moduleName)) {
+            throw new CabinRuntimeException("Invalid module Manifest, blank Module-Name, "
+                    + module.getUrl().toExternalForm());
+        }
+        return moduleName;
+    }
+
+    /**
+     * Wait for an archive inspected, throwing the failure as if the archive was inspected in the current thread.
+     */
+    private static <T> T await(final Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CabinRuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CabinRuntimeException(cause);
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        final int threads = Math.max(1,
+                Integer.getInteger(CABIN_MODULE_LOAD_THREADS, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threads, new CabinThreadFactory("LibModuleMergeThread"));
+    }
+
+    private static StartupTimeline.Span startDiscovery(final String source) {
+        return StartupTimeline.get().start(StartupTimeline.CATEGORY_DISCOVERY, source);
+    }
+
+    private static void endDiscovery(final StartupTimeline.Span span, final int moduleCount) {
+        span.count("modules", moduleCount).end();
+        LOGGER.info("Found {} {} modules in {} ms", moduleCount, span.getName(),
+                TimeUnit.NANOSECONDS.toMillis(span.getDurationNanos()));
+    }
+}
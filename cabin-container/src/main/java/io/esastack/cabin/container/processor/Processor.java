@@ -18,8 +18,18 @@ package io.esastack.cabin.container.processor;
 import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.container.initialize.CabinBootContext;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface Processor {
 
     void process(CabinBootContext cabinBootContext) throws CabinRuntimeException;
 
+    /**
+     * @return processors which must be finished before this one, processors without dependencies on each other may
+     * run concurrently
+     */
+    default List<Class<? extends Processor>> getDependencies() {
+        return Collections.emptyList();
+    }
 }
@@ -24,17 +24,23 @@ import io.esastack.cabin.common.util.CabinStringUtil;
 import io.esastack.cabin.container.domain.ExportInfo;
 import io.esastack.cabin.container.domain.ImportInfo;
 import io.esastack.cabin.container.domain.LibModule;
+import io.esastack.cabin.container.domain.ModuleDescriptor;
+import io.esastack.cabin.container.initialize.StartupTimeline;
+import io.esastack.cabin.container.service.loader.ClassDataSharing;
 import io.esastack.cabin.loader.archive.Archive;
+import io.esastack.cabin.loader.util.ExportIndex;
 import org.slf4j.Logger;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.jar.Manifest;
 
 import static io.esastack.cabin.common.constant.Constants.*;
 
@@ -67,14 +73,28 @@ public class LibModuleFactoryServiceImpl implements LibModuleFactoryService<LibM
 
     @Override
     public LibModule createModule(final String name, final Archive archive) throws CabinRuntimeException {
+        final StartupTimeline.Span span = StartupTimeline.get().start(StartupTimeline.CATEGORY_MODULE, "create", name);
+        try {
+            final LibModule module = doCreateModule(name, archive);
+            if (module.getClassLoader() instanceof URLClassLoader) {
+                span.count("jars", ((URLClassLoader) module.getClassLoader()).getURLs().length);
+            }
+            span.count("providedClasses", module.getProvidedClasses().size());
+            return module;
+        } finally {
+            span.end();
+        }
+    }
 
-        final int priority = getPriority(name, archive);
-        final ExportInfo exportInfo = getExportInfo(name, archive);
-        final ImportInfo importInfo = getImportInfo(name, archive);
-        final List<String> providedClasses = getProvidedClasses(name, archive);
+    private LibModule doCreateModule(final String name, final Archive archive) throws CabinRuntimeException {
+        final ModuleDescriptor descriptor = getModuleDescriptor(name, archive);
+        final ExportInfo exportInfo = descriptor.toExportInfo();
+        final ImportInfo importInfo = descriptor.toImportInfo();
+        importInfo.setLoadFromSystemClassLoader(Boolean.getBoolean("loadFromSystemClassLoader"));
+        final List<String> providedClasses = descriptor.getProvidedClasses();
         final URL[] urls;
         try {
-            urls = getLibModuleClasspathUrls(archive).toArray(new URL[0]);
+            urls = ClassDataSharing.toStableUrls(getLibModuleClasspathUrls(archive).toArray(new URL[0]));
         } catch (IOException e) {
             throw new CabinRuntimeException(String.format("Failed to get jar from libs of module {%s}", name));
         }
@@ -92,7 +112,9 @@ public class LibModuleFactoryServiceImpl implements LibModuleFactoryService<LibM
         final ClassLoader classLoader = classLoaderService.createLibModuleClassLoader(param);
         return LibModule.newBuilder()
                 .name(name)
-                .priority(priority)
+                .priority(descriptor.getPriority())
+                .descriptor(descriptor)
+                .exportIndex(getExportIndex(name, archive))
                 .archive(archive)
                 .exportInfo(exportInfo)
                 .importInfo(importInfo)
@@ -106,25 +128,67 @@ public class LibModuleFactoryServiceImpl implements LibModuleFactoryService<LibM
         classLoaderService.destroyLibModuleClassLoader(name);
     }
 
-    private int getPriority(final String name, final Archive archive) {
+    /**
+     * The manifest is read once for all the attributes, it's kept softly by the jar and may be parsed again if read
+     * more times.
+     */
+    private ModuleDescriptor getModuleDescriptor(final String name, final Archive archive) {
+        Manifest manifest = null;
         try {
-            final String priority = archive.getManifest().getMainAttributes().getValue(MANIFEST_MODULE_PRIORITY);
-            if (CabinStringUtil.isNotBlank(priority)) {
-                return Integer.parseInt(priority);
-            }
+            manifest = archive.getManifest();
         } catch (IOException e) {
-            LOGGER.error("Failed to get priority from manifest of module archive: " + name, e);
+            LOGGER.error("Failed to get manifest of module archive: " + name, e);
         }
-        return 100;
+        return ModuleDescriptor.of(manifest, getProvidedClasses(name, archive));
     }
 
-    private String getVersion(final String name, final Archive archive) {
-        try {
-            return archive.getManifest().getMainAttributes().getValue(MANIFEST_MODULE_VERSION);
+    /**
+     * Read the exported classes and resources from the export index with one read, or from the text files for the
+     * modules packaged by the former plugins. An index which could not be read, such as one written by a newer
+     * plugin, falls back to the text files packaged along with it.
+     *
+     * @return null if neither the index nor the text files found
+     */
+    ExportIndex getExportIndex(final String name, final Archive archive) {
+        final URL exportIndexUrl = archive.getResource(EXPORT_INDEX_FILE);
+        if (exportIndexUrl != null) {
+            try (InputStream in = exportIndexUrl.openStream()) {
+                return ExportIndex.read(in);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to read " + EXPORT_INDEX_FILE + " from archive of module: " + name
+                        + ", fall back to " + EXPORTED_CLASS_FILE + " and " + EXPORTED_RESOURCE_FILE, e);
+            }
+        }
+        final List<String> classes = readLines(name, archive, EXPORTED_CLASS_FILE);
+        final List<String> resources = readLines(name, archive, EXPORTED_RESOURCE_FILE);
+        if (classes == null && resources == null) {
+            return null;
+        }
+        return ExportIndex.of(classes == null ? Collections.emptyList() : classes,
+                resources == null ? Collections.emptyList() : resources);
+    }
+
+    /**
+     * @return null if the file not found
+     */
+    private List<String> readLines(final String name, final Archive archive, final String file) {
+        final URL url = archive.getResource(file);
+        if (url == null) {
+            LOGGER.warn("Failed to find " + file + " file from archive of module: " + name);
+            return null;
+        }
+        final List<String> lines = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(url.openStream()))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                if (CabinStringUtil.isNotBlank(line)) {
+                    lines.add(line.trim());
+                }
+            }
         } catch (IOException e) {
-            LOGGER.error("Failed to get version from manifest of module archive: " + name, e);
+            throw new CabinRuntimeException("Failed open " + file + " file from archive of module: " + name, e);
         }
-        return null;
+        return lines;
     }
 
     @SuppressWarnings("unchecked")
@@ -152,85 +216,4 @@ public class LibModuleFactoryServiceImpl implements LibModuleFactoryService<LibM
                     "Failed open conf/provided_classes file from archive of module: " + name, e);
         }
     }
-
-    private ExportInfo getExportInfo(final String name, final Archive archive) {
-        final ExportInfo exportInfo = new ExportInfo();
-        try {
-            final String exportClasses = archive.getManifest().getMainAttributes().getValue(MANIFEST_EXPORT_CLASSES);
-            if (!CabinStringUtil.isBlank(exportClasses)) {
-                exportInfo.addClasses(Arrays.asList(exportClasses.split(",")));
-            }
-        } catch (Throwable e) {
-            LOGGER.error("Failed to get Export-Classes from manifest of module archive: " + name, e);
-        }
-
-        try {
-            final String exportPackages = archive.getManifest().getMainAttributes().getValue(MANIFEST_EXPORT_PACKAGES);
-            if (!CabinStringUtil.isBlank(exportPackages)) {
-                exportInfo.addPackages(Arrays.asList(exportPackages.split(",")));
-            }
-        } catch (Throwable e) {
-            LOGGER.error("Failed to get Export-Packages from manifest of module archive: " + name, e);
-        }
-
-        try {
-            final String exportJars = archive.getManifest().getMainAttributes().getValue(MANIFEST_EXPORT_JARS);
-            if (!CabinStringUtil.isBlank(exportJars)) {
-                exportInfo.addJars(Arrays.asList(exportJars.split(",")));
-            }
-        } catch (Throwable e) {
-            LOGGER.error("Failed to get Export-Jars from manifest of module archive: " + name, e);
-        }
-
-        return exportInfo;
-    }
-
-    private ImportInfo getImportInfo(final String name, final Archive archive) {
-        final ImportInfo importInfo = new ImportInfo();
-        try {
-            final String importClasses = archive.getManifest().getMainAttributes().getValue(MANIFEST_IMPORT_CLASSES);
-            if (!CabinStringUtil.isBlank(importClasses)) {
-                importInfo.addClasses(Arrays.asList(importClasses.split(",")));
-            }
-        } catch (Throwable e) {
-            LOGGER.error("Failed to get Import-Packages from manifest of module archive: " + name, e);
-        }
-
-        try {
-            final String importPackages = archive.getManifest().getMainAttributes().getValue(MANIFEST_IMPORT_PACKAGES);
-            if (!CabinStringUtil.isBlank(importPackages)) {
-                importInfo.addPackages(Arrays.asList(importPackages.split(",")));
-            }
-        } catch (Throwable e) {
-            LOGGER.error("Failed to get Import-Packages from manifest of module archive: " + name, e);
-        }
-
-        try {
-            final String importResources =
-                    archive.getManifest().getMainAttributes().getValue(MANIFEST_IMPORT_RESOURCES);
-            if (!CabinStringUtil.isBlank(importResources)) {
-                importInfo.addImportResources(Arrays.asList(importResources.split(",")));
-            }
-        } catch (Throwable e) {
-            LOGGER.error("Failed to get Import-Resources from manifest of module archive: " + name, e);
-        }
-
-        try {
-            final String loadFromBizClassLoader =
-                    archive.getManifest().getMainAttributes().getValue(MANIFEST_LOAD_FROM_BIZ);
-            if (!CabinStringUtil.isBlank(loadFromBizClassLoader)) {
-                importInfo.setLoadFromBizClassLoader(Boolean.parseBoolean(loadFromBizClassLoader));
-            }
-        } catch (Throwable e) {
-            LOGGER.error("Failed to get LoadFromBizClassLoader from manifest of module archive: " + name, e);
-        }
-
-        try {
-            importInfo.setLoadFromSystemClassLoader(Boolean.getBoolean("loadFromSystemClassLoader"));
-        } catch (Throwable e) {
-            LOGGER.error("Failed to parse oadFromSystemClassLoader from system properties", e);
-        }
-
-        return importInfo;
-    }
 }
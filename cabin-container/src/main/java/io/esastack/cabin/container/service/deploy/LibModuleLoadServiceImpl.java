@@ -20,15 +20,21 @@ import io.esastack.cabin.api.service.deploy.LibModuleFactoryService;
 import io.esastack.cabin.api.service.deploy.LibModuleLoadService;
 import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.common.util.CabinFutureUtil;
 import io.esastack.cabin.container.domain.LibModule;
 import io.esastack.cabin.loader.archive.Archive;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class LibModuleLoadServiceImpl implements LibModuleLoadService {
 
@@ -52,6 +58,33 @@ public class LibModuleLoadServiceImpl implements LibModuleLoadService {
         return module;
     }
 
+    /**
+     * Modules are registered after all of them created, the failures of all the modules are reported together.
+     */
+    @Override
+    public List<Module> loadModules(final Map<String, Archive> archives, final ExecutorService executor)
+            throws CabinRuntimeException {
+        final Map<String, Future<LibModule>> futures = new LinkedHashMap<>();
+        archives.forEach((name, archive) -> futures.put(name, executor.submit(() -> {
+            final long start = System.nanoTime();
+            final LibModule module = moduleFactory.createModule(name, archive);
+            LOGGER.info("Created module {} in {} ms", name,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return module;
+        })));
+
+        final List<LibModule> created = CabinFutureUtil.getAll(futures, "Failed to create module");
+
+        final List<Module> result = new ArrayList<>(created.size());
+        for (LibModule module : created) {
+            if (modules.putIfAbsent(module.getName(), module) != null) {
+                throw new CabinRuntimeException("Duplicated module found for module name: " + module.getName());
+            }
+            result.add(module);
+        }
+        return result;
+    }
+
     @Override
     public Module getModule(final String name) {
         return modules.get(name);
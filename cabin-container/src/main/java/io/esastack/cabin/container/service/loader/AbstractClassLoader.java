@@ -25,18 +25,14 @@ import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
 import io.esastack.cabin.common.util.CabinStringUtil;
 import io.esastack.cabin.container.service.CabinServiceManager;
-import io.esastack.cabin.loader.jar.Handler;
 import org.slf4j.Logger;
 
 import java.io.IOException;
-import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.net.URLConnection;
-import java.security.AccessController;
-import java.security.PrivilegedExceptionAction;
 import java.util.*;
-import java.util.jar.JarFile;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.Manifest;
 
 public abstract class AbstractClassLoader extends URLClassLoader {
 
@@ -46,6 +42,23 @@ public abstract class AbstractClassLoader extends URLClassLoader {
             "io.esastack.cabin"
     };
 
+    /**
+     * Routing of the packages configured for the whole container, shared by all the module classloaders.
+     */
+    protected static final PackagePrefixTrie CONTAINER_PACKAGE_ROUTES = PackagePrefixTrie.newBuilder()
+            .addAll(CABIN_LOAD_PACKAGES, PackagePrefixTrie.CABIN)
+            .addAll(Constants.IMPORT_PKG_ENABLE ? Constants.DEFAULT_IMPORT_PKG : null, PackagePrefixTrie.IMPORT)
+            .addAll(Constants.CUSTOM_IMPORT_PKG, PackagePrefixTrie.IMPORT)
+            .build();
+
+    /*
+     * Subclasses must register themselves too, or else getClassLoadingLock returns the classloader itself and all
+     * the class loading of a module is serialized.
+     */
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     protected final String moduleName;
 
     protected final ClassLoaderService classLoaderService =
@@ -57,9 +70,22 @@ public abstract class AbstractClassLoader extends URLClassLoader {
     protected final SharedResourceService sharedResourceService =
             CabinServiceManager.get().getService(SharedResourceService.class);
 
+    private final NegativeLookupCache classMisses = new NegativeLookupCache();
+
+    private final NegativeLookupCache resourceMisses = new NegativeLookupCache();
+
+    private final NegativeLookupCache resourcesMisses = new NegativeLookupCache();
+
+    private final JarClassPath jarClassPath;
+
+    private final LongAdder definedPackages = new LongAdder();
+
+    private final ClassLoadMetrics classLoadMetrics = new ClassLoadMetrics();
+
     public AbstractClassLoader(final String moduleName, final URL[] urls) {
         super(urls, null);
         this.moduleName = moduleName;
+        this.jarClassPath = JarClassPath.of(getURLs());
         if (LOGGER.isDebugEnabled()) {
             LOGGER.info(CabinStringUtil.urlsToString("ClassLoader URLs of Module {" + moduleName + "} : ", urls));
         }
@@ -69,6 +95,26 @@ public abstract class AbstractClassLoader extends URLClassLoader {
         return moduleName;
     }
 
+    public JarClassPath getJarClassPath() {
+        return jarClassPath;
+    }
+
+    public NegativeLookupCache getClassMissCache() {
+        return classMisses;
+    }
+
+    public NegativeLookupCache getResourceMissCache() {
+        return resourceMisses;
+    }
+
+    public NegativeLookupCache getResourcesMissCache() {
+        return resourcesMisses;
+    }
+
+    public ClassLoadMetrics getClassLoadMetrics() {
+        return classLoadMetrics;
+    }
+
     @Override
     protected Class<?> loadClass(final String name, final boolean resolve) throws CabinLoaderException {
 
@@ -76,9 +122,16 @@ public abstract class AbstractClassLoader extends URLClassLoader {
             throw new CabinRuntimeException("class name is blank");
         }
 
-        //synchronized as its super class.
+        //lock per class name, as the classloader is registered as parallel capable.
         synchronized (getClassLoadingLock(name)) {
-            Handler.setUseFastConnectionExceptions(true);
+            //classes defined by frameworks directly into this classloader are found by the records first.
+            final long generation = classMisses.generation();
+            final long start = ClassLoadMetrics.startNanos();
+            if (classMisses.contains(name) && findLoadedClass(name) == null) {
+                classLoadMetrics.record(ClassLoadMetrics.Source.MISS, start);
+                throw new CabinLoaderException(
+                        String.format("Could not load class {%s} from module {%s}", name, getModuleName()));
+            }
             try {
                 doDefinePackage(name);
                 final Class<?> clazz = loadClass0(name, resolve);
@@ -86,8 +139,9 @@ public abstract class AbstractClassLoader extends URLClassLoader {
                     resolveClass(clazz);
                 }
                 return clazz;
-            } finally {
-                Handler.setUseFastConnectionExceptions(false);
+            } catch (ClassMissException ex) {
+                classMisses.add(name, generation);
+                throw ex;
             }
         }
     }
@@ -109,68 +163,86 @@ public abstract class AbstractClassLoader extends URLClassLoader {
         }
     }
 
-    private void doDefinePackage(final String clazzName, final String packName) {
-        try {
-            AccessController.doPrivileged((PrivilegedExceptionAction<Object>) () -> {
-                final StringBuilder packBuf = new StringBuilder();
-                final StringBuilder clazzBuf = new StringBuilder();
-                final String packageEntryName = packBuf.append(packName.replace('.', '/'))
-                        .append("/")
-                        .toString();
-                final String classEntryName = clazzBuf.append(clazzName.replace('.', '/'))
-                        .append(".class")
-                        .toString();
-                for (URL url : getURLs()) {
-                    try {
-                        final URLConnection connection = url.openConnection();
-                        if (connection instanceof JarURLConnection) {
-                            final JarFile jarFile = ((JarURLConnection) connection).getJarFile();
-                            if (jarFile.getEntry(classEntryName) != null
-                                    && jarFile.getEntry(packageEntryName) != null
-                                    && jarFile.getManifest() != null) {
-                                definePackage(packName, jarFile.getManifest(), url);
-                                return null;
-                            }
-                        }
-                    } catch (IOException ex) {
-                        // Ignore
-                    }
-                }
-                return null;
-            }, AccessController.getContext());
-        } catch (java.security.PrivilegedActionException ex) {
-            // Ignore
+    /**
+     * The jar to define the package from is found in the package index of the classpath, instead of connecting every
+     * classpath url for each new package.
+     */
+    private void doDefinePackage(final String clazzName, final String packName) throws IOException {
+        final JarClassPath.Resource source =
+                jarClassPath.findPackageSource(packName, clazzName.replace('.', '/').concat(".class"));
+        if (source != null) {
+            final Manifest manifest = source.getManifest();
+            if (manifest != null) {
+                definePackage(packName, manifest, source.getUrl());
+            }
         }
     }
 
+    /**
+     * All the package definitions, including the ones by {@link URLClassLoader}, come to here.
+     */
+    @Override
+    protected Package definePackage(final String name, final String specTitle, final String specVersion,
+                                    final String specVendor, final String implTitle, final String implVersion,
+                                    final String implVendor, final URL sealBase) throws IllegalArgumentException {
+        final Package pkg = super.definePackage(name, specTitle, specVersion, specVendor, implTitle, implVersion,
+                implVendor, sealBase);
+        definedPackages.increment();
+        return pkg;
+    }
+
+    /**
+     * @return number of the packages defined by this classloader
+     */
+    public long getDefinedPackageCount() {
+        return definedPackages.sum();
+    }
+
     @Override
     public Enumeration<URL> getResources(final String name) throws IOException {
-        Handler.setUseFastConnectionExceptions(true);
-        try {
-            if (name == null) {
-                throw new CabinRuntimeException("Could not find resource for null");
-            }
-            return getResources0(name);
-        } finally {
-            Handler.setUseFastConnectionExceptions(false);
+        if (name == null) {
+            throw new CabinRuntimeException("Could not find resource for null");
         }
+        if (resourcesMisses.contains(name)) {
+            return Collections.emptyEnumeration();
+        }
+        final long generation = resourcesMisses.generation();
+        final Enumeration<URL> resources = getResources0(name);
+        if (!resources.hasMoreElements()) {
+            resourcesMisses.add(name, generation);
+        }
+        return resources;
     }
 
     @Override
     public URL getResource(final String name) {
-        Handler.setUseFastConnectionExceptions(true);
-        try {
-            if (name == null) {
-                throw new NullPointerException();
-            }
-            return getResource0(name);
-        } finally {
-            Handler.setUseFastConnectionExceptions(false);
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        if (resourceMisses.contains(name)) {
+            return null;
+        }
+        final long generation = resourceMisses.generation();
+        final URL resource = getResource0(name);
+        if (resource == null) {
+            resourceMisses.add(name, generation);
         }
+        return resource;
     }
 
     protected abstract Class<?> loadClass0(String name, boolean resolve) throws CabinLoaderException;
 
+    /**
+     * Create the exception for the class which could not be found through the whole delegation chain, the class name
+     * would be cached as a miss until the module set changed.
+     *
+     * @param start the time got by {@link ClassLoadMetrics#startNanos()} before walking the delegation chain
+     */
+    protected CabinLoaderException classNotFound(final String message, final long start) {
+        classLoadMetrics.record(ClassLoadMetrics.Source.MISS, start);
+        return new ClassMissException(message);
+    }
+
     /**
      * Pay attention to the priority of finding resource: jdk, exported, biz
      */
@@ -181,6 +253,11 @@ public abstract class AbstractClassLoader extends URLClassLoader {
      */
     protected abstract URL getResource0(String name);
 
+    /**
+     * Called by other classloaders without going through {@link #loadClass(String, boolean)}. The class loading lock is
+     * not held here, as the caller may hold the lock of its own loader for the same class name, and two loaders
+     * calling each other would deadlock; a concurrent definition is handled in {@link #findLocalClass(String)}.
+     */
     public Class<?> loadClassFromClasspath(final String name) throws CabinLoaderException {
         Class<?> clazz = loadFromRecords(name);
         if (clazz == null) {
@@ -190,7 +267,11 @@ public abstract class AbstractClassLoader extends URLClassLoader {
     }
 
     protected Class<?> loadImportClassFromBiz(final String name) throws CabinLoaderException {
-        if (shouldImportClassFromBiz(name)) {
+        return loadImportClassFromBiz(name, routeOf(name));
+    }
+
+    protected Class<?> loadImportClassFromBiz(final String name, final int route) throws CabinLoaderException {
+        if (shouldImportClassFromBiz(name, route)) {
             try {
                 final Class<?> clazz = ((AbstractClassLoader) classLoaderService.getBizModuleClassLoader())
                         .loadClassFromClasspath(name);
@@ -225,15 +306,11 @@ public abstract class AbstractClassLoader extends URLClassLoader {
     }
 
     protected Class<?> loadCabinClass(final String name) throws CabinLoaderException {
-        boolean shouldLoad = false;
-        for (String pkg : CABIN_LOAD_PACKAGES) {
-            if (name.startsWith(pkg)) {
-                shouldLoad = true;
-                break;
-            }
-        }
+        return loadCabinClass(name, routeOf(name));
+    }
 
-        if (shouldLoad) {
+    protected Class<?> loadCabinClass(final String name, final int route) throws CabinLoaderException {
+        if ((route & PackagePrefixTrie.CABIN) != 0) {
             try {
                 return classLoaderService.getCabinClassLoader().loadClass(name);
             } catch (ClassNotFoundException e) {
@@ -269,7 +346,7 @@ public abstract class AbstractClassLoader extends URLClassLoader {
 
     protected Class<?> loadLocalClass(final String name) throws CabinLoaderException {
         try {
-            return findClass(name);
+            return findLocalClass(name);
         } catch (ClassNotFoundException e) {
             //ignore, if not found, return null
         } catch (Throwable t) {
@@ -278,6 +355,82 @@ public abstract class AbstractClassLoader extends URLClassLoader {
         return null;
     }
 
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        final Class<?> clazz = findLocalClass(name);
+        if (clazz == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return clazz;
+    }
+
+    /**
+     * Find the class in the cabin jars of the classpath directly, the class bytes are read from the jar data and
+     * defined with the code source of the jar; URLClassLoader is used only if some classpath url is not a cabin jar.
+     *
+     * @return null if the class could not be found in the cabin jars
+     */
+    protected Class<?> findLocalClass(final String name) throws ClassNotFoundException {
+        final Class<?> clazz;
+        try {
+            clazz = defineLocalClass(name);
+        } catch (LinkageError e) {
+            //duplicate definition, defined by another thread through loadClassFromClasspath without the lock
+            final Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                throw e;
+            }
+            return loaded;
+        }
+        if (clazz != null && ClassDataSharing.isTraining()) {
+            ClassDataSharing.recordDefinedClass(clazz);
+        }
+        return clazz;
+    }
+
+    private Class<?> defineLocalClass(final String name) throws ClassNotFoundException {
+        if (!jarClassPath.isDirect()) {
+            return super.findClass(name);
+        }
+        final JarClassPath.Resource resource = jarClassPath.find(name.replace('.', '/').concat(".class"));
+        if (resource == null) {
+            return null;
+        }
+        try {
+            definePackageIfAbsent(name, resource);
+            final byte[] bytes = resource.getBytes();
+            return defineClass(name, bytes, 0, bytes.length, resource.getCodeSource());
+        } catch (IOException ex) {
+            throw new ClassNotFoundException(name, ex);
+        }
+    }
+
+    private void definePackageIfAbsent(final String className, final JarClassPath.Resource resource)
+            throws IOException {
+        final int lastIndex = className.lastIndexOf('.');
+        if (lastIndex < 0) {
+            return;
+        }
+        final String packageName = className.substring(0, lastIndex);
+        final Package pkg = getPackage(packageName);
+        if (pkg != null) {
+            if (pkg.isSealed() && !pkg.isSealed(resource.getUrl())) {
+                throw new SecurityException("Sealing violation: package " + packageName + " is sealed");
+            }
+            return;
+        }
+        final Manifest manifest = resource.getManifest();
+        try {
+            if (manifest != null) {
+                definePackage(packageName, manifest, resource.getUrl());
+            } else {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            }
+        } catch (IllegalArgumentException ex) {
+            //defined concurrently by another thread
+        }
+    }
+
     /**
      * * Why we need to load Agent Classes:
      * The classes in agent jars may be used to enhance the Biz classes and Lib classes, using javassist or asm;
@@ -326,6 +479,31 @@ public abstract class AbstractClassLoader extends URLClassLoader {
         return super.getResources(name);
     }
 
+    /**
+     * Look the resource up in the central directories of the cabin jars directly, so probing a missing resource
+     * neither opens a connection nor builds an exception; the returned URLs keep the normal handler.
+     */
+    @Override
+    public URL findResource(final String name) {
+        if (jarClassPath.isDirect()) {
+            return jarClassPath.findResource(name);
+        }
+        return super.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(final String name) throws IOException {
+        if (jarClassPath.isDirect()) {
+            return Collections.enumeration(jarClassPath.findResources(name));
+        }
+        return super.findResources(name);
+    }
+
+    /**
+     * Only the resources exported by name are visible to other modules, a directory is never exported as a whole,
+     * so looking up a directory returns nothing from the exporting modules; use
+     * {@link SharedResourceService#getResourceNames(String)} to enumerate the exported resources under a prefix.
+     */
     @SuppressWarnings("unchecked")
     protected Enumeration<URL> getExportResources(final String name) throws IOException {
         final List<Enumeration<URL>> enumerations = new ArrayList<>();
@@ -397,24 +575,39 @@ public abstract class AbstractClassLoader extends URLClassLoader {
     }
 
     protected boolean shouldImportClassFromBiz(final String name) {
-        if (Constants.IMPORT_PKG_ENABLE) {
-            for (String packageName : Constants.DEFAULT_IMPORT_PKG) {
-                if (CabinStringUtil.isNotBlank(packageName) && name.startsWith(packageName)) {
-                    return true;
-                }
-            }
-        }
+        return shouldImportClassFromBiz(name, routeOf(name));
+    }
 
-        for (String packageName : Constants.CUSTOM_IMPORT_PKG) {
-            if (CabinStringUtil.isNotBlank(packageName) && name.startsWith(packageName)) {
-                return true;
-            }
-        }
+    protected boolean shouldImportClassFromBiz(final String name, final int route) {
+        return (route & PackagePrefixTrie.IMPORT) != 0;
+    }
 
-        return false;
+    /**
+     * Package routing of this classloader, sub classes with extra package configurations should override it.
+     */
+    protected PackagePrefixTrie getPackageRoutes() {
+        return CONTAINER_PACKAGE_ROUTES;
+    }
+
+    /**
+     * Route the class name in a single pass, the result is the flags defined in {@link PackagePrefixTrie}.
+     */
+    protected int routeOf(final String name) {
+        return getPackageRoutes().match(name);
     }
 
-    protected void debugClassLoadMessage(final Class<?> clazz, final String method, final String className) {
+    /**
+     * Record the step of the delegation chain which found the class.
+     *
+     * @param start the time got by {@link ClassLoadMetrics#startNanos()} before walking the delegation chain
+     */
+    protected void classLoaded(final Class<?> clazz, final ClassLoadMetrics.Source source, final long start,
+                               final String method, final String className) {
+        classLoadMetrics.record(source, start);
+        debugClassLoadMessage(clazz, method, className);
+    }
+
+    private void debugClassLoadMessage(final Class<?> clazz, final String method, final String className) {
         if (LOGGER.isDebugEnabled()) {
             String position = "unknown";
             if (clazz.getProtectionDomain() != null && clazz.getProtectionDomain().getCodeSource() != null
@@ -425,4 +618,13 @@ public abstract class AbstractClassLoader extends URLClassLoader {
                     getModuleName(), className, position, method));
         }
     }
+
+    private static final class ClassMissException extends CabinLoaderException {
+
+        private static final long serialVersionUID = 2950867531498318402L;
+
+        private ClassMissException(final String message) {
+            super(message);
+        }
+    }
 }
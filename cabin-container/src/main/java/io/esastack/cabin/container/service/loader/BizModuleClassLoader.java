@@ -18,6 +18,7 @@ package io.esastack.cabin.container.service.loader;
 import io.esastack.cabin.common.CompoundEnumeration;
 import io.esastack.cabin.common.exception.CabinLoaderException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.container.service.loader.ClassLoadMetrics.Source;
 import org.slf4j.Logger;
 
 import java.io.IOException;
@@ -30,6 +31,10 @@ public class BizModuleClassLoader extends AbstractClassLoader {
 
     private static final Logger LOGGER = CabinLoggerFactory.getLogger(BizModuleClassLoader.class);
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     public BizModuleClassLoader(final URL[] urls) {
         this("BizModule", urls);
     }
@@ -40,39 +45,43 @@ public class BizModuleClassLoader extends AbstractClassLoader {
 
     @Override
     protected Class<?> loadClass0(final String name, final boolean resolve) throws CabinLoaderException {
+        final long start = ClassLoadMetrics.startNanos();
 
         //load classed which has been loaded by this classloader, the relationship is recorded by jvm
         Class<?> clazz = loadFromRecords(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadFromRecords", name);
+            classLoaded(clazz, Source.RECORDS, start, "loadFromRecords", name);
             return clazz;
         }
 
         //load jdk classes
         clazz = loadJdkClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadJdkClass", name);
+            classLoaded(clazz, Source.JDK, start, "loadJdkClass", name);
             return clazz;
         }
 
+        //route the class name once, the result is shared by the following steps
+        final int route = routeOf(name);
+
         //load cabin classed, such as spi, etc.
-        clazz = loadCabinClass(name);
+        clazz = loadCabinClass(name, route);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadCabinClass", name);
+            classLoaded(clazz, Source.CABIN, start, "loadCabinClass", name);
             return clazz;
         }
 
         //load shared classes
         clazz = loadSharedClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadSharedClass", name);
+            classLoaded(clazz, Source.SHARED, start, "loadSharedClass", name);
             return clazz;
         }
 
         //load local classes from classpath urls
         clazz = loadLocalClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadLocalClass", name);
+            classLoaded(clazz, Source.LOCAL, start, "loadLocalClass", name);
             return clazz;
         }
 
@@ -80,10 +89,10 @@ public class BizModuleClassLoader extends AbstractClassLoader {
         clazz = loadAgentClass(name);
 
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadAgentClass", name);
+            classLoaded(clazz, Source.AGENT, start, "loadAgentClass", name);
             return clazz;
         }
-        throw new CabinLoaderException(String.format("Could not load class {%s} from Biz", name));
+        throw classNotFound(String.format("Could not load class {%s} from Biz", name), start);
     }
 
     @SuppressWarnings("unchecked")
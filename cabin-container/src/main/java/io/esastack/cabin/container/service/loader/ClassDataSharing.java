@@ -0,0 +1,193 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.common.util.ClassLoaderUtils;
+import io.esastack.cabin.loader.util.ArchiveUtils;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.esastack.cabin.common.constant.Constants.*;
+
+/**
+ * Class data sharing of the classes defined by the module classloaders, enabled by "cabin.cds.dir".
+ * The nested jars of the modules and biz are extracted into the dir, so the classes are loaded from the same plain
+ * jar files on every run, which is required by the JVM to archive and verify them. A training run, see
+ * "cabin.cds.training", records the defined classes and writes them in the class list format of the JDK at exit:
+ * on JDK 13+ the archive is dumped by the JVM itself with -XX:ArchiveClassesAtExit, while on JDK 9-12 the class list
+ * is used to dump a static archive. Classes loaded from nested directories, such as APP-INF/classes, are not listed.
+ */
+public final class ClassDataSharing {
+
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(ClassDataSharing.class);
+
+    private static final String DIR = System.getProperty(CABIN_CDS_DIR, "").trim();
+
+    private static final boolean TRAINING = !DIR.isEmpty() && Boolean.getBoolean(CABIN_CDS_TRAINING);
+
+    private static final Set<Class<?>> DEFINED_CLASSES = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicBoolean HOOKED = new AtomicBoolean();
+
+    private ClassDataSharing() {
+    }
+
+    public static boolean isEnabled() {
+        return !DIR.isEmpty();
+    }
+
+    public static boolean isTraining() {
+        return TRAINING;
+    }
+
+    /**
+     * @return urls with the nested jars replaced by the extracted files if enabled, else the urls themselves
+     */
+    public static URL[] toStableUrls(final URL[] urls) {
+        if (!isEnabled() || urls == null) {
+            return urls;
+        }
+        return ArchiveUtils.toStableJarUrls(urls, new File(DIR, CDS_JARS_DIRECTORY));
+    }
+
+    static void recordDefinedClass(final Class<?> clazz) {
+        DEFINED_CLASSES.add(clazz);
+        if (HOOKED.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                    writeClassList(DEFINED_CLASSES, new File(DIR, CDS_CLASS_LIST_FILE)), "CabinCdsClassListWriter"));
+        }
+    }
+
+    public static void logStatus() {
+        if (!isEnabled()) {
+            return;
+        }
+        final String archive = new File(DIR, CDS_ARCHIVE_FILE).getPath();
+        if (TRAINING) {
+            LOGGER.info("Cabin CDS training run, classes of the modules will be listed in {} at exit",
+                    new File(DIR, CDS_CLASS_LIST_FILE));
+            if (ClassLoaderUtils.getInputArgument(JVM_ARCHIVE_CLASSES_AT_EXIT) == null) {
+                LOGGER.info("Run with {}{} on JDK 13+ to dump the archive at exit, or dump it on JDK 9-12 after exit "
+                                + "by -Xshare:dump -XX:SharedClassListFile={} {}{} and the same classpath",
+                        JVM_ARCHIVE_CLASSES_AT_EXIT, archive, new File(DIR, CDS_CLASS_LIST_FILE),
+                        JVM_SHARED_ARCHIVE_FILE, archive);
+            }
+        } else if (ClassLoaderUtils.getInputArgument(JVM_SHARED_ARCHIVE_FILE) == null) {
+            LOGGER.info("Cabin CDS enabled, but no shared archive is used, run with {}{} after a training run",
+                    JVM_SHARED_ARCHIVE_FILE, archive);
+        }
+    }
+
+    /**
+     * Write the classes in the class list format, classes of the builtin loaders are listed by name, the others with
+     * the ids of their super types and the jar file they are loaded from, which must be a plain jar file; a class
+     * is skipped if its jar is not, and so are its subtypes.
+     */
+    public static List<String> toClassList(final Collection<Class<?>> classes) {
+        final List<String> lines = new ArrayList<>();
+        final Map<Class<?>, Integer> ids = new IdentityHashMap<>();
+        for (Class<?> clazz : classes) {
+            listClass(clazz, ids, lines);
+        }
+        return lines;
+    }
+
+    private static int listClass(final Class<?> clazz, final Map<Class<?>, Integer> ids, final List<String> lines) {
+        final Integer listed = ids.get(clazz);
+        if (listed != null) {
+            return listed;
+        }
+        //mark as skipped while listing the super types, there is no cycle in super types anyway
+        ids.put(clazz, -1);
+        final StringBuilder line = new StringBuilder(clazz.getName().replace('.', '/'));
+        if (!isBuiltin(clazz.getClassLoader())) {
+            final String source = getJarSource(clazz);
+            if (source == null) {
+                return -1;
+            }
+            //interfaces are listed with Object as the super class
+            final int superId = listClass(clazz.isInterface() ? Object.class : clazz.getSuperclass(), ids, lines);
+            if (superId < 0) {
+                return -1;
+            }
+            final StringBuilder interfaces = new StringBuilder();
+            for (Class<?> type : clazz.getInterfaces()) {
+                final int interfaceId = listClass(type, ids, lines);
+                if (interfaceId < 0) {
+                    return -1;
+                }
+                interfaces.append(' ').append(interfaceId);
+            }
+            line.append(" id: ").append(lines.size()).append(" super: ").append(superId);
+            if (interfaces.length() > 0) {
+                line.append(" interfaces:").append(interfaces);
+            }
+            line.append(" source: ").append(source);
+        } else {
+            line.append(" id: ").append(lines.size());
+        }
+        ids.put(clazz, lines.size());
+        lines.add(line.toString());
+        return lines.size() - 1;
+    }
+
+    private static boolean isBuiltin(final ClassLoader classLoader) {
+        final ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+        return classLoader == null || classLoader == systemClassLoader || classLoader == systemClassLoader.getParent();
+    }
+
+    private static String getJarSource(final Class<?> clazz) {
+        final ProtectionDomain domain = clazz.getProtectionDomain();
+        final CodeSource codeSource = domain == null ? null : domain.getCodeSource();
+        final URL location = codeSource == null ? null : codeSource.getLocation();
+        if (location == null || !"file".equals(location.getProtocol())
+                || !location.getPath().endsWith(JAR_FILE_SUFFIX)) {
+            return null;
+        }
+        try {
+            return new File(location.toURI()).getAbsolutePath();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeClassList(final Collection<Class<?>> classes, final File file) {
+        final List<String> lines = toClassList(classes);
+        try {
+            Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+            LOGGER.info("Listed {} classes of {} defined by the modules in {}", lines.size(), classes.size(), file);
+        } catch (IOException e) {
+            LOGGER.error("Failed to write class list to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import java.beans.ConstructorProperties;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.esastack.cabin.common.constant.Constants.CABIN_LOADER_METRICS_ENABLED;
+
+/**
+ * Class loading metrics of a module classloader, the loaded classes are counted by the step of the delegation chain
+ * which found them, together with a latency distribution of each step.
+ * Latencies are recorded into power of two buckets, so a percentile is accurate to a factor of two, which is enough
+ * to tell a hot delegation chain, and costs only a few atomic increments per class.
+ * The classes are always counted by step, setting {@code cabin.loader.metrics.enable} to false disables only the
+ * latencies, which saves reading the clock twice per class.
+ */
+public class ClassLoadMetrics {
+
+    private static final boolean TIMING_ENABLED =
+            Boolean.parseBoolean(System.getProperty(CABIN_LOADER_METRICS_ENABLED, "true"));
+
+    /**
+     * Steps of the delegation chain, MISS for the classes not found by any step.
+     */
+    public enum Source {
+        RECORDS, JDK, CABIN, SHARED, PROVIDED, IMPORT, LOCAL, BIZ, AGENT, MISS;
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Histogram[] histograms = new Histogram[Source.values().length];
+
+    public ClassLoadMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * @return false if only the classes are counted, without the latencies
+     */
+    public static boolean isTimingEnabled() {
+        return TIMING_ENABLED;
+    }
+
+    /**
+     * @return start time to be passed to {@link #record(Source, long)}, 0 if the timing is disabled
+     */
+    public static long startNanos() {
+        return TIMING_ENABLED ? System.nanoTime() : 0L;
+    }
+
+    public void record(final Source source, final long startNanos) {
+        if (TIMING_ENABLED) {
+            histograms[source.ordinal()].record(System.nanoTime() - startNanos);
+        } else {
+            histograms[source.ordinal()].count();
+        }
+    }
+
+    public Histogram getHistogram(final Source source) {
+        return histograms[source.ordinal()];
+    }
+
+    public long getCount(final Source source) {
+        return histograms[source.ordinal()].getCount();
+    }
+
+    /**
+     * @return count of the classes found by all the steps, excluding the misses
+     */
+    public long getLoadedCount() {
+        long count = 0;
+        for (Source source : Source.values()) {
+            if (source != Source.MISS) {
+                count += getCount(source);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return statistics of the sources which have ever been hit, keyed by {@link Source#getKey()}
+     */
+    public Map<String, Stats> snapshot() {
+        final Map<String, Stats> stats = new LinkedHashMap<>();
+        for (Source source : Source.values()) {
+            final Histogram histogram = getHistogram(source);
+            if (histogram.getCount() > 0) {
+                stats.put(source.getKey(), histogram.toStats());
+            }
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClassLoadMetrics" + snapshot();
+    }
+
+    /**
+     * Latency distribution in nanoseconds, bucket i holds the values in [2^(i-1), 2^i).
+     */
+    public static final class Histogram {
+
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(final long nanos) {
+            final long value = Math.max(0L, nanos);
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+            count.increment();
+            totalNanos.add(value);
+            if (value > maxNanos.get()) {
+                maxNanos.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        void count() {
+            count.increment();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * @param percentile in (0, 100]
+         * @return upper bound of the bucket containing the percentile, never greater than the max
+         */
+        public long getValueAtPercentile(final double percentile) {
+            long total = 0;
+            final long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0L;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil(total * Math.min(100d, percentile) / 100d));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(getMaxNanos(), i == 0 ? 0L : (1L << i) - 1);
+                }
+            }
+            return getMaxNanos();
+        }
+
+        Stats toStats() {
+            return new Stats(getCount(), getTotalNanos(), getMaxNanos(), getValueAtPercentile(50),
+                    getValueAtPercentile(90), getValueAtPercentile(99));
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0L);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0L);
+        }
+    }
+
+    /**
+     * Immutable statistics of a source, mapped to CompositeData by {@link ClassLoadMetricsMXBean}.
+     */
+    public static final class Stats {
+
+        private final long count;
+
+        private final long totalNanos;
+
+        private final long maxNanos;
+
+        private final long p50Nanos;
+
+        private final long p90Nanos;
+
+        private final long p99Nanos;
+
+        @ConstructorProperties({"count", "totalNanos", "maxNanos", "p50Nanos", "p90Nanos", "p99Nanos"})
+        public Stats(final long count, final long totalNanos, final long maxNanos,
+                     final long p50Nanos, final long p90Nanos, final long p99Nanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count + ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos
+                    + ", p50Nanos=" + p50Nanos + ", p90Nanos=" + p90Nanos + ", p99Nanos=" + p99Nanos + "}";
+        }
+    }
+}
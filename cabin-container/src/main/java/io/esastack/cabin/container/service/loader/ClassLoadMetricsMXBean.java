@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import java.util.Map;
+
+/**
+ * Class loading metrics of all the module classloaders, registered as {@link #OBJECT_NAME} by the container.
+ */
+public interface ClassLoadMetricsMXBean {
+
+    String OBJECT_NAME = "io.esastack.cabin:type=ClassLoadMetrics";
+
+    /**
+     * @return count of the loaded classes of each module, excluding the misses
+     */
+    Map<String, Long> getLoadedCounts();
+
+    /**
+     * @return count of the classes could not be found of each module
+     */
+    Map<String, Long> getMissCounts();
+
+    /**
+     * @return statistics of the delegation steps of the module, keyed by {@link ClassLoadMetrics.Source#getKey()}
+     */
+    Map<String, ClassLoadMetrics.Stats> getModuleMetrics(String moduleName);
+
+    void reset();
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import io.esastack.cabin.api.domain.Module;
+import io.esastack.cabin.api.service.deploy.LibModuleLoadService;
+import io.esastack.cabin.api.service.loader.ClassLoaderService;
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import org.slf4j.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+public class ClassLoadMetricsMXBeanImpl implements ClassLoadMetricsMXBean {
+
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(ClassLoadMetricsMXBeanImpl.class);
+
+    private final ClassLoaderService classLoaderService;
+
+    private final LibModuleLoadService libModuleLoadService;
+
+    public ClassLoadMetricsMXBeanImpl(final ClassLoaderService classLoaderService,
+                                      final LibModuleLoadService libModuleLoadService) {
+        this.classLoaderService = classLoaderService;
+        this.libModuleLoadService = libModuleLoadService;
+    }
+
+    /**
+     * Register to the platform MBeanServer, replacing the one registered by a previous container, failures are
+     * logged only, metrics should never break the container.
+     */
+    public void register() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Throwable t) {
+            LOGGER.warn("Failed to register " + OBJECT_NAME, t);
+        }
+    }
+
+    /**
+     * @return metrics of the biz, lib modules and java agents, keyed by module name
+     */
+    public Map<String, ClassLoadMetrics> getMetrics() {
+        final Map<String, ClassLoadMetrics> metrics = new LinkedHashMap<>();
+        addMetrics(metrics, classLoaderService.getBizModuleClassLoader());
+        if (libModuleLoadService != null) {
+            for (Module module : libModuleLoadService.getAllModules()) {
+                addMetrics(metrics, module.getClassLoader());
+            }
+        }
+        classLoaderService.getJavaAgentModuleClassLoaders().values().forEach(loader -> addMetrics(metrics, loader));
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    @Override
+    public Map<String, Long> getLoadedCounts() {
+        return counts(ClassLoadMetrics::getLoadedCount);
+    }
+
+    @Override
+    public Map<String, Long> getMissCounts() {
+        return counts(metrics -> metrics.getCount(ClassLoadMetrics.Source.MISS));
+    }
+
+    @Override
+    public Map<String, ClassLoadMetrics.Stats> getModuleMetrics(final String moduleName) {
+        final ClassLoadMetrics metrics = getMetrics().get(moduleName);
+        return metrics == null ? Collections.emptyMap() : metrics.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        getMetrics().values().forEach(ClassLoadMetrics::reset);
+    }
+
+    private Map<String, Long> counts(final ToLongFunction<ClassLoadMetrics> count) {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        getMetrics().forEach((module, metrics) -> counts.put(module, count.applyAsLong(metrics)));
+        return counts;
+    }
+
+    private static void addMetrics(final Map<String, ClassLoadMetrics> metrics, final ClassLoader classLoader) {
+        if (classLoader instanceof AbstractClassLoader) {
+            final AbstractClassLoader loader = (AbstractClassLoader) classLoader;
+            metrics.put(loader.getModuleName(), loader.getClassLoadMetrics());
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.loader.data.RandomAccessData;
+import io.esastack.cabin.loader.jar.JarFile;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+/**
+ * The cabin jars behind the classpath urls of a module classloader. Entries are looked up in the central directories
+ * parsed while opening the jars and read from the underlying data directly, no URL or URLConnection is created.
+ * Direct lookup is only possible while every classpath url is a cabin jar, or else the classloader keeps using
+ * {@link java.net.URLClassLoader} to respect the classpath order.
+ */
+public final class JarClassPath {
+
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(JarClassPath.class);
+
+    private static final int[] NO_JARS = new int[0];
+
+    private final URL[] urls;
+
+    private final JarFile[] jarFiles;
+
+    //built once per jar, the entries of signed jars get their own code source with the signers.
+    private final CodeSource[] codeSources;
+
+    private final boolean direct;
+
+    //package name -> indexes of the cabin jars containing classes of the package, in classpath order
+    private volatile Map<String, int[]> packages;
+
+    private JarClassPath(final URL[] urls, final JarFile[] jarFiles, final boolean direct) {
+        this.urls = urls;
+        this.jarFiles = jarFiles;
+        this.direct = direct;
+        this.codeSources = new CodeSource[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            this.codeSources[i] = new CodeSource(urls[i], (CodeSigner[]) null);
+        }
+    }
+
+    public static JarClassPath of(final URL[] urls) {
+        final URL[] copy = urls == null ? new URL[0] : urls.clone();
+        final JarFile[] jarFiles = new JarFile[copy.length];
+        boolean direct = copy.length > 0;
+        for (int i = 0; i < copy.length; i++) {
+            jarFiles[i] = toJarFile(copy[i]);
+            direct &= jarFiles[i] != null;
+        }
+        return new JarClassPath(copy, jarFiles, direct);
+    }
+
+    private static JarFile toJarFile(final URL url) {
+        if (url == null || !"jar".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            final URLConnection connection = url.openConnection();
+            if (connection instanceof JarURLConnection) {
+                final java.util.jar.JarFile jarFile = ((JarURLConnection) connection).getJarFile();
+                //only urls pointing to the root of a jar, same as the urls of URLClassLoader
+                if (jarFile instanceof JarFile
+                        && ((JarFile) jarFile).getUrl().toExternalForm().equals(url.toExternalForm())) {
+                    return (JarFile) jarFile;
+                }
+            }
+        } catch (IOException ex) {
+            //Ignore, the url is not a cabin jar
+        }
+        return null;
+    }
+
+    /**
+     * @return true if all the classpath urls are cabin jars, so entries could be found directly.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public int size() {
+        return urls.length;
+    }
+
+    public URL getUrl(final int index) {
+        return urls[index];
+    }
+
+    /**
+     * @return indexes of the cabin jars which contain classes of the package, in classpath order
+     */
+    public int[] getPackageJars(final String packageName) {
+        final int[] jars = getPackages().get(packageName);
+        return jars == null ? NO_JARS : jars;
+    }
+
+    /**
+     * Packages of all the cabin jars, built from the parsed central directories at the first call.
+     */
+    public Map<String, int[]> getPackages() {
+        Map<String, int[]> packages = this.packages;
+        if (packages == null) {
+            synchronized (this) {
+                packages = this.packages;
+                if (packages == null) {
+                    packages = buildPackages();
+                    this.packages = packages;
+                }
+            }
+        }
+        return packages;
+    }
+
+    private Map<String, int[]> buildPackages() {
+        final Map<String, List<Integer>> jarsOfPackages = new LinkedHashMap<>();
+        for (int i = 0; i < jarFiles.length; i++) {
+            if (jarFiles[i] == null) {
+                continue;
+            }
+            try {
+                for (String packageName : jarFiles[i].getPackageNames()) {
+                    jarsOfPackages.computeIfAbsent(packageName, name -> new ArrayList<>(1)).add(i);
+                }
+            } catch (Throwable t) {
+                LOGGER.warn("Failed to index packages of " + urls[i], t);
+            }
+        }
+        if (jarsOfPackages.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, int[]> packages = new HashMap<>(jarsOfPackages.size() * 4 / 3 + 1);
+        jarsOfPackages.forEach((packageName, jars) ->
+                packages.put(packageName, jars.stream().mapToInt(Integer::intValue).toArray()));
+        return packages;
+    }
+
+    /**
+     * Find the jar to define the package of a class from, which is the first jar containing the class entry among
+     * the jars containing the package; the cost is not related to the number of jars in the classpath.
+     *
+     * @param packageName    package name
+     * @param classEntryName entry name of the class, such as "a/b/C.class"
+     * @return null if the class is not in any cabin jar
+     */
+    public Resource findPackageSource(final String packageName, final String classEntryName) {
+        for (int index : getPackageJars(packageName)) {
+            final ZipEntry entry = jarFiles[index].getEntry(classEntryName);
+            if (entry != null && !entry.isDirectory()) {
+                return new Resource(index, (JarEntry) entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param path entry name, such as "a/b/C.class"
+     * @return the first matched entry in classpath order, null if not found or the class path is not direct
+     */
+    public Resource find(final String path) {
+        if (!direct) {
+            return null;
+        }
+        for (int i = 0; i < jarFiles.length; i++) {
+            final ZipEntry entry = jarFiles[i].getEntry(path);
+            if (entry != null && !entry.isDirectory()) {
+                return new Resource(i, (JarEntry) entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name resource name, such as "a/b/c.properties"
+     * @return URL of the first matched entry in classpath order, built with the normal handler of the jar, so the
+     * connections of it and of the URLs relative to it fail with descriptive exceptions; null if not found or the
+     * class path is not direct
+     */
+    public URL findResource(final String name) {
+        if (!direct) {
+            return null;
+        }
+        for (int i = 0; i < jarFiles.length; i++) {
+            final URL url = getEntryUrl(i, name);
+            if (url != null) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name resource name, such as "a/b/c.properties"
+     * @return URLs of all the matched entries in classpath order, empty if the class path is not direct
+     */
+    public List<URL> findResources(final String name) {
+        if (!direct) {
+            return Collections.emptyList();
+        }
+        List<URL> result = null;
+        for (int i = 0; i < jarFiles.length; i++) {
+            final URL url = getEntryUrl(i, name);
+            if (url != null) {
+                if (result == null) {
+                    result = new ArrayList<>(2);
+                }
+                result.add(url);
+            }
+        }
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    private URL getEntryUrl(final int index, final String name) {
+        try {
+            return jarFiles[index].getEntryUrl(name);
+        } catch (MalformedURLException ex) {
+            return null;
+        }
+    }
+
+    public final class Resource {
+
+        private final int index;
+
+        private final JarEntry entry;
+
+        private Resource(final int index, final JarEntry entry) {
+            this.index = index;
+            this.entry = entry;
+        }
+
+        public URL getUrl() {
+            return urls[index];
+        }
+
+        public JarFile getJarFile() {
+            return jarFiles[index];
+        }
+
+        public Manifest getManifest() throws IOException {
+            return jarFiles[index].getManifest();
+        }
+
+        public CodeSource getCodeSource() {
+            final CodeSigner[] signers = entry.getCodeSigners();
+            return signers == null ? codeSources[index] : new CodeSource(urls[index], signers);
+        }
+
+        public byte[] getBytes() throws IOException {
+            final long size = entry.getSize();
+            try (InputStream in = jarFiles[index].getInputStream(entry, RandomAccessData.ResourceAccess.ONCE)) {
+                if (size >= 0 && size <= Integer.MAX_VALUE) {
+                    final byte[] bytes = new byte[(int) size];
+                    int offset = 0;
+                    int read;
+                    while (offset < bytes.length && (read = in.read(bytes, offset, bytes.length - offset)) != -1) {
+                        offset += read;
+                    }
+                    if (offset == bytes.length) {
+                        return bytes;
+                    }
+                    throw new IOException("Unexpected end of entry " + entry.getName() + " in " + getUrl());
+                }
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ package io.esastack.cabin.container.service.loader;
 
 import io.esastack.cabin.common.CompoundEnumeration;
 import io.esastack.cabin.common.exception.CabinLoaderException;
+import io.esastack.cabin.container.service.loader.ClassLoadMetrics.Source;
 
 import java.io.IOException;
 import java.net.URL;
@@ -41,6 +42,10 @@ import java.util.List;
  */
 public class JavaAgentClassLoader extends AbstractClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     private final URL agentUrl;
 
     public JavaAgentClassLoader(final URL agentUrl) {
@@ -63,47 +68,51 @@ public class JavaAgentClassLoader extends AbstractClassLoader {
      */
     @Override
     protected Class<?> loadClass0(final String name, final boolean resolve) throws CabinLoaderException {
+        final long start = ClassLoadMetrics.startNanos();
 
         //load classed which has been loaded by this classloader, the relationship is recorded by jvm
         Class<?> clazz = loadFromRecords(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadFromRecords", name);
+            classLoaded(clazz, Source.RECORDS, start, "loadFromRecords", name);
             return clazz;
         }
 
         //load jdk classes
         clazz = loadJdkClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadJdkClass", name);
+            classLoaded(clazz, Source.JDK, start, "loadJdkClass", name);
             return clazz;
         }
 
+        //route the class name once, the result is shared by the following steps
+        final int route = routeOf(name);
+
         //load cabin classed, such as spi, etc.
-        clazz = loadCabinClass(name);
+        clazz = loadCabinClass(name, route);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadCabinClass", name);
+            classLoaded(clazz, Source.CABIN, start, "loadCabinClass", name);
             return clazz;
         }
 
         //load import classes from biz classloader, some classes such as Spring/Jedis/SPI/Log4j/Logback/Slf4j, etc,
         //should always be loaded from Biz first
-        clazz = loadImportClassFromBiz(name);
+        clazz = loadImportClassFromBiz(name, route);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadImportClassFromBiz", name);
+            classLoaded(clazz, Source.IMPORT, start, "loadImportClassFromBiz", name);
             return clazz;
         }
 
         //load local classes from classpath urls
         clazz = loadLocalClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadLocalClass", name);
+            classLoaded(clazz, Source.LOCAL, start, "loadLocalClass", name);
             return clazz;
         }
 
         //load shared classes
         clazz = loadSharedClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadSharedClass", name);
+            classLoaded(clazz, Source.SHARED, start, "loadSharedClass", name);
             return clazz;
         }
 
@@ -112,11 +121,11 @@ public class JavaAgentClassLoader extends AbstractClassLoader {
          */
         clazz = loadBizClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadExternalBizClass", name);
+            classLoaded(clazz, Source.BIZ, start, "loadExternalBizClass", name);
             return clazz;
         }
 
-        throw new CabinLoaderException(String.format("Could not load class {%s} from Agent: ", agentUrl));
+        throw classNotFound(String.format("Could not load class {%s} from Agent: ", agentUrl), start);
     }
 
     @Override
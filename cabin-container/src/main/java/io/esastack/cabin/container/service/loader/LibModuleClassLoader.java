@@ -18,22 +18,33 @@ package io.esastack.cabin.container.service.loader;
 import io.esastack.cabin.common.CompoundEnumeration;
 import io.esastack.cabin.common.exception.CabinLoaderException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
-import io.esastack.cabin.common.util.CabinStringUtil;
+import io.esastack.cabin.container.service.loader.ClassLoadMetrics.Source;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
 
+import static io.esastack.cabin.common.constant.Constants.CABIN_LOCAL_PACKAGE_INDEX_ENABLED;
+
 public class LibModuleClassLoader extends AbstractClassLoader {
 
     private static final Logger LOGGER = CabinLoggerFactory.getLogger(LibModuleClassLoader.class);
 
+    private static final boolean LOCAL_PACKAGE_INDEX_ENABLED =
+            Boolean.parseBoolean(System.getProperty(CABIN_LOCAL_PACKAGE_INDEX_ENABLED, "true"));
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private final LocalPackageIndex localPackages;
+
     private Set<String> providedClasses;
 
     private Set<String> importClasses;
 
-    private List<String> importPackages;
+    private PackagePrefixTrie packageRoutes = CONTAINER_PACKAGE_ROUTES;
 
     private List<String> importResources;
 
@@ -41,6 +52,12 @@ public class LibModuleClassLoader extends AbstractClassLoader {
 
     public LibModuleClassLoader(final String moduleName, final URL[] urls) {
         super(moduleName, urls);
+        this.localPackages = LOCAL_PACKAGE_INDEX_ENABLED
+                ? LocalPackageIndex.build(getJarClassPath()) : LocalPackageIndex.empty();
+    }
+
+    public LocalPackageIndex getLocalPackageIndex() {
+        return localPackages;
     }
 
     public void setProvidedClasses(final List<String> providedClasses) {
@@ -51,8 +68,18 @@ public class LibModuleClassLoader extends AbstractClassLoader {
         this.importClasses = new HashSet<>(importClasses);
     }
 
+    /**
+     * Import packages of the module are compiled together with the packages of the container into one trie.
+     */
     public void setImportPackages(final List<String> importPackages) {
-        this.importPackages = importPackages;
+        if (importPackages == null || importPackages.isEmpty()) {
+            this.packageRoutes = CONTAINER_PACKAGE_ROUTES;
+        } else {
+            this.packageRoutes = PackagePrefixTrie.newBuilder()
+                    .addAll(CONTAINER_PACKAGE_ROUTES)
+                    .addAll(importPackages, PackagePrefixTrie.IMPORT)
+                    .build();
+        }
     }
 
     public void setImportResources(final List<String> importResources) {
@@ -65,32 +92,45 @@ public class LibModuleClassLoader extends AbstractClassLoader {
 
     @Override
     protected Class<?> loadClass0(final String name, final boolean resolve) throws CabinLoaderException {
+        final long start = ClassLoadMetrics.startNanos();
 
         //load classed which has been loaded by this classloader, the relationship is recorded by jvm
         Class<?> clazz = loadFromRecords(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadFromRecords", name);
+            classLoaded(clazz, Source.RECORDS, start, "loadFromRecords", name);
             return clazz;
         }
 
+        //route the class name once, the result is shared by the following steps
+        final int route = routeOf(name);
+
+        //classes of the packages which could only be found in local jars skip the whole delegation chain
+        if (isLocalOnlyClass(name, route)) {
+            clazz = loadLocalClass(name);
+            if (clazz != null) {
+                classLoaded(clazz, Source.LOCAL, start, "loadIndexedLocalClass", name);
+                return clazz;
+            }
+        }
+
         //load jdk classes
         clazz = loadJdkClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadJdkClass", name);
+            classLoaded(clazz, Source.JDK, start, "loadJdkClass", name);
             return clazz;
         }
 
         //load cabin classed, such as spi, etc.
-        clazz = loadCabinClass(name);
+        clazz = loadCabinClass(name, route);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadCabinClass", name);
+            classLoaded(clazz, Source.CABIN, start, "loadCabinClass", name);
             return clazz;
         }
 
         //load shared classes
         clazz = loadSharedClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadSharedClass", name);
+            classLoaded(clazz, Source.SHARED, start, "loadSharedClass", name);
             return clazz;
         }
 
@@ -100,7 +140,7 @@ public class LibModuleClassLoader extends AbstractClassLoader {
          */
         clazz = loadProvidedClassFromBiz(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadProvidedClassFromBiz", name);
+            classLoaded(clazz, Source.PROVIDED, start, "loadProvidedClassFromBiz", name);
             return clazz;
         }
 
@@ -108,9 +148,9 @@ public class LibModuleClassLoader extends AbstractClassLoader {
           load import classes from biz classloader, some classes such as Spring/Jedis/SPI/Log4j/Logback/Slf4j, etc,
           should always be loaded from Biz first
          */
-        clazz = loadImportClassFromBiz(name);
+        clazz = loadImportClassFromBiz(name, route);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadImportClassFromBiz", name);
+            classLoaded(clazz, Source.IMPORT, start, "loadImportClassFromBiz", name);
             return clazz;
         }
 
@@ -121,7 +161,7 @@ public class LibModuleClassLoader extends AbstractClassLoader {
          */
         clazz = loadLocalClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadLocalClass", name);
+            classLoaded(clazz, Source.LOCAL, start, "loadLocalClass", name);
             return clazz;
         }
 
@@ -130,18 +170,18 @@ public class LibModuleClassLoader extends AbstractClassLoader {
          */
         clazz = loadExternalClassFromBiz(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadExternalBizClass", name);
+            classLoaded(clazz, Source.BIZ, start, "loadExternalBizClass", name);
             return clazz;
         }
 
         //load agent classes, there may be agent to enhance lib module classes too, as biz classes.
         clazz = loadAgentClass(name);
         if (clazz != null) {
-            debugClassLoadMessage(clazz, "loadAgentClass", name);
+            classLoaded(clazz, Source.AGENT, start, "loadAgentClass", name);
             return clazz;
         }
-        throw new CabinLoaderException(
-                String.format("Could not load class {%s} from module {%s}", name, getModuleName()));
+        throw classNotFound(
+                String.format("Could not load class {%s} from module {%s}", name, getModuleName()), start);
     }
 
     @SuppressWarnings("unchecked")
@@ -238,33 +278,78 @@ public class LibModuleClassLoader extends AbstractClassLoader {
         return null;
     }
 
-    @Override
-    protected boolean shouldImportClassFromBiz(final String name) {
-        if (super.shouldImportClassFromBiz(name)) {
-            return true;
+    /**
+     * A class could be loaded locally at first only if none of the preceding steps could take it: the package is
+     * contained in local jars but not in jdk, not routed to cabin or biz, and neither the class nor its package is
+     * exported by any module. The jdk probing is done once per package, the export state is recomputed after the
+     * module set changed.
+     */
+    private boolean isLocalOnlyClass(final String name, final int route) {
+        if (route != PackagePrefixTrie.NONE || localPackages.size() == 0) {
+            return false;
         }
-        if (importClasses != null && importClasses.contains(name)) {
+        final int index = name.lastIndexOf('.');
+        if (index <= 0) {
+            return false;
+        }
+        final String packageName = name.substring(0, index);
+        final LocalPackageIndex.Entry entry = localPackages.getEntry(packageName);
+        if (entry == null) {
+            return false;
+        }
+        if ((importClasses != null && importClasses.contains(name))
+                || (providedClasses != null && providedClasses.contains(name))) {
+            return false;
+        }
+        Boolean jdkPackage = entry.getJdkPackage();
+        if (jdkPackage == null) {
+            jdkPackage = isJdkPackage(name, packageName);
+            entry.setJdkPackage(jdkPackage);
+        }
+        if (jdkPackage) {
+            return false;
+        }
+        if (sharedClassService == null) {
             return true;
         }
-
-        if (importPackages != null && importPackages.size() != 0) {
-            for (String packageName : importPackages) {
-                if (CabinStringUtil.isNotBlank(packageName) && name.startsWith(packageName)) {
-                    return true;
-                }
-            }
+        if (sharedClassService.containsClass(name)) {
+            return false;
+        }
+        final long generation = getClassMissCache().generation();
+        Boolean exported = entry.getExported(generation);
+        if (exported == null) {
+            exported = sharedClassService.isPackageExported(packageName);
+            entry.setExported(exported, generation);
         }
+        return !exported;
+    }
+
+    private boolean isJdkPackage(final String name, final String packageName) {
+        final ClassLoader extClassLoader = classLoaderService.getExtClassLoader();
+        return extClassLoader.getResource(name.replace('.', '/') + ".class") != null
+                || extClassLoader.getResource(packageName.replace('.', '/') + "/") != null;
+    }
 
-        return false;
+    @Override
+    protected PackagePrefixTrie getPackageRoutes() {
+        return packageRoutes;
+    }
+
+    @Override
+    protected boolean shouldImportClassFromBiz(final String name, final int route) {
+        if (super.shouldImportClassFromBiz(name, route)) {
+            return true;
+        }
+        return importClasses != null && importClasses.contains(name);
     }
 
     /**
      * Must load from local class path.
      */
     @Override
-    protected Class<?> loadImportClassFromBiz(final String name) throws CabinLoaderException {
+    protected Class<?> loadImportClassFromBiz(final String name, final int route) throws CabinLoaderException {
         if (loadFromBizClassLoader) {
-            return super.loadImportClassFromBiz(name);
+            return super.loadImportClassFromBiz(name, route);
         }
         return null;
     }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the packages contained in the nested jars of a module, built from the package index of the classpath
+ * which is read from the central directories parsed while opening the jars, so no extra IO is needed.
+ * The index only tells which jars contain a package, whether a class of the package could be loaded locally without
+ * delegating is decided by the classloader.
+ */
+public final class LocalPackageIndex {
+
+    private static final LocalPackageIndex EMPTY = new LocalPackageIndex(Collections.emptyMap());
+
+    private final Map<String, Entry> packages;
+
+    private LocalPackageIndex(final Map<String, Entry> packages) {
+        this.packages = packages;
+    }
+
+    public static LocalPackageIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Urls which are not cabin jars, such as directories of exploded modules, are skipped; classes in them are
+     * loaded through the whole delegation chain as before.
+     */
+    public static LocalPackageIndex build(final JarClassPath classPath) {
+        final Map<String, int[]> jarsOfPackages = classPath.getPackages();
+        if (jarsOfPackages.isEmpty()) {
+            return EMPTY;
+        }
+        final Map<String, Entry> packages = new HashMap<>(jarsOfPackages.size() * 4 / 3 + 1);
+        jarsOfPackages.forEach((packageName, jars) -> {
+            final URL[] sources = new URL[jars.length];
+            for (int i = 0; i < jars.length; i++) {
+                sources[i] = classPath.getUrl(jars[i]);
+            }
+            packages.put(packageName, new Entry(sources));
+        });
+        return new LocalPackageIndex(packages);
+    }
+
+    public int size() {
+        return packages.size();
+    }
+
+    public boolean containsPackage(final String packageName) {
+        return packages.containsKey(packageName);
+    }
+
+    /**
+     * @return urls of the jars containing the package, in classpath order; null if the package is not local
+     */
+    public URL[] getSources(final String packageName) {
+        final Entry entry = packages.get(packageName);
+        return entry == null ? null : entry.sources.clone();
+    }
+
+    Entry getEntry(final String packageName) {
+        return packages.get(packageName);
+    }
+
+    /**
+     * Holds the lazily computed visibility of a package, the jdk visibility never changes, while the export state
+     * is recomputed once the module set changed.
+     */
+    static final class Entry {
+
+        private final URL[] sources;
+
+        private volatile Boolean jdkPackage;
+
+        //generation << 1 | exported, written at once so that the flag and the generation never mismatch
+        private volatile long exportState = -1L;
+
+        private Entry(final URL[] sources) {
+            this.sources = sources;
+        }
+
+        Boolean getJdkPackage() {
+            return jdkPackage;
+        }
+
+        void setJdkPackage(final boolean jdkPackage) {
+            this.jdkPackage = jdkPackage;
+        }
+
+        /**
+         * @return null if the export state has not been computed under the generation
+         */
+        Boolean getExported(final long generation) {
+            final long state = exportState;
+            if (state < 0 || state >>> 1 != generation) {
+                return null;
+            }
+            return (state & 1L) != 0;
+        }
+
+        void setExported(final boolean exported, final long generation) {
+            this.exportState = generation << 1 | (exported ? 1L : 0L);
+        }
+    }
+}
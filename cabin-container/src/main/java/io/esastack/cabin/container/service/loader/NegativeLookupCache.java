@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.esastack.cabin.common.constant.Constants.CABIN_NEGATIVE_CACHE_ENABLED;
+import static io.esastack.cabin.common.constant.Constants.CABIN_NEGATIVE_CACHE_SIZE;
+
+/**
+ * Bounded cache of the class/resource names that could not be found by a module classloader, frameworks such as
+ * Spring and Jackson probe lots of optional classes, caching the failures avoids walking the whole delegation chain
+ * again and again.
+ * All the caches share a global generation, which is increased while the module set changed, such as installing or
+ * uninstalling a lib module dynamically; a cache is cleared lazily while it finds the generation changed.
+ */
+public class NegativeLookupCache {
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty(CABIN_NEGATIVE_CACHE_ENABLED, "true"));
+
+    private static final int DEFAULT_MAX_SIZE = Integer.getInteger(CABIN_NEGATIVE_CACHE_SIZE, 4096);
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private static final Object PRESENT = Boolean.TRUE;
+
+    private final ConcurrentMap<String, Object> misses = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private volatile long generation = GENERATION.get();
+
+    public NegativeLookupCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public NegativeLookupCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Invalidate all the caches, should be called while the module set changed.
+     */
+    public static void invalidateAll() {
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * @return the generation, which should be passed to {@link #add(String, long)} after the lookup failed
+     */
+    public long generation() {
+        return GENERATION.get();
+    }
+
+    /**
+     * @param name class or resource name
+     * @return true if the name was known as missing under current module set
+     */
+    public boolean contains(final String name) {
+        if (!ENABLED || maxSize <= 0) {
+            return false;
+        }
+        checkGeneration();
+        if (misses.containsKey(name)) {
+            hitCount.increment();
+            return true;
+        }
+        missCount.increment();
+        return false;
+    }
+
+    /**
+     * Record a failed lookup, the record is dropped if the module set has changed since the lookup started.
+     *
+     * @param name       class or resource name
+     * @param generation the generation got before the lookup
+     */
+    public void add(final String name, final long generation) {
+        if (!ENABLED || maxSize <= 0 || generation != GENERATION.get()) {
+            return;
+        }
+        checkGeneration();
+        if (misses.size() >= maxSize) {
+            final Iterator<String> iterator = misses.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        misses.put(name, PRESENT);
+    }
+
+    public void clear() {
+        misses.clear();
+    }
+
+    public int size() {
+        return misses.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private void checkGeneration() {
+        final long current = GENERATION.get();
+        if (generation < current) {
+            synchronized (this) {
+                if (generation < current) {
+                    misses.clear();
+                    generation = current;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NegativeLookupCache{size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "}";
+    }
+}
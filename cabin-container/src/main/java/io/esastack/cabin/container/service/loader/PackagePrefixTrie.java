@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.loader;
+
+import io.esastack.cabin.common.util.CabinStringUtil;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix trie used to route a class name to the class loading steps it should go through.
+ * Every configured prefix carries a set of route flags, {@link #match(String)} walks the class name once and returns
+ * the union of the flags of all the prefixes matching the name.
+ * The matching is a plain string prefix matching, same as {@link String#startsWith(String)}, so the routing result
+ * is exactly the same as scanning the package lists one by one.
+ */
+public final class PackagePrefixTrie {
+
+    public static final int NONE = 0;
+
+    /**
+     * The class should be loaded by the cabin container classloader first.
+     */
+    public static final int CABIN = 1;
+
+    /**
+     * The class should be imported from biz classloader.
+     */
+    public static final int IMPORT = 1 << 1;
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root;
+
+    private PackagePrefixTrie(final Node root) {
+        this.root = root;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @param name class name or resource name to route
+     * @return union of the flags of all the prefixes of the name, {@link #NONE} if no prefix matched
+     */
+    public int match(final String name) {
+        Node node = root;
+        int flags = node.flags;
+        final int length = name.length();
+        for (int i = 0; i < length; i++) {
+            node = node.child(name.charAt(i));
+            if (node == null) {
+                break;
+            }
+            flags |= node.flags;
+        }
+        return flags;
+    }
+
+    public boolean matches(final String name, final int flag) {
+        return (match(name) & flag) != 0;
+    }
+
+    private static final class Node {
+
+        private final int flags;
+
+        private final char[] keys;
+
+        private final Node[] children;
+
+        private Node(final int flags, final char[] keys, final Node[] children) {
+            this.flags = flags;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        private Node child(final char c) {
+            final char[] keys = this.keys;
+            if (keys.length == 1) {
+                return keys[0] == c ? children[0] : null;
+            }
+            final int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    public static class Builder {
+
+        private final MutableNode root = new MutableNode();
+
+        /**
+         * Blank prefixes are ignored, as the original package list scanning does.
+         */
+        public Builder add(final String prefix, final int flags) {
+            if (CabinStringUtil.isBlank(prefix)) {
+                return this;
+            }
+            MutableNode node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new MutableNode());
+            }
+            node.flags |= flags;
+            return this;
+        }
+
+        public Builder addAll(final String[] prefixes, final int flags) {
+            if (prefixes != null) {
+                for (String prefix : prefixes) {
+                    add(prefix, flags);
+                }
+            }
+            return this;
+        }
+
+        public Builder addAll(final Iterable<String> prefixes, final int flags) {
+            if (prefixes != null) {
+                for (String prefix : prefixes) {
+                    add(prefix, flags);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Copy all the prefixes of an existing trie, used to extend the shared routing of the container with the
+         * prefixes of a module.
+         */
+        public Builder addAll(final PackagePrefixTrie trie) {
+            if (trie != null) {
+                copy(trie.root, root);
+            }
+            return this;
+        }
+
+        public PackagePrefixTrie build() {
+            return new PackagePrefixTrie(compile(root));
+        }
+
+        private static void copy(final Node from, final MutableNode to) {
+            to.flags |= from.flags;
+            for (int i = 0; i < from.keys.length; i++) {
+                copy(from.children[i], to.children.computeIfAbsent(from.keys[i], c -> new MutableNode()));
+            }
+        }
+
+        private static Node compile(final MutableNode node) {
+            if (node.children.isEmpty()) {
+                return new Node(node.flags, NO_KEYS, NO_CHILDREN);
+            }
+            final char[] keys = new char[node.children.size()];
+            final Node[] children = new Node[keys.length];
+            int i = 0;
+            //TreeMap keeps the keys sorted, which is required by the binary search.
+            for (Map.Entry<Character, MutableNode> entry : node.children.entrySet()) {
+                keys[i] = entry.getKey();
+                children[i] = compile(entry.getValue());
+                i++;
+            }
+            return new Node(node.flags, keys, children);
+        }
+    }
+
+    private static class MutableNode {
+
+        private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+
+        private int flags;
+    }
+}
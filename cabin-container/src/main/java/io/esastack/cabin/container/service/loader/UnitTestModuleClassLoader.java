@@ -37,6 +37,10 @@ public class UnitTestModuleClassLoader extends BizModuleClassLoader {
             "org.apache.catalina", "org.apache.coyote", "org.apache.juli", "org.apache.naming",
             "org.apache.tomcat", "org.apache.el", "javax"};
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     public UnitTestModuleClassLoader(final URL[] urls) {
         super("UnitTestModule", urls);
     }
@@ -23,17 +23,12 @@ import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
 import io.esastack.cabin.common.util.CabinStringUtil;
 import io.esastack.cabin.container.domain.LibModule;
+import io.esastack.cabin.loader.util.ExportIndex;
 import org.slf4j.Logger;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
-import static io.esastack.cabin.common.constant.Constants.EXPORTED_CLASS_FILE;
-import static io.esastack.cabin.common.constant.Constants.EXPORTED_RESOURCE_FILE;
 
 public class LibModuleExportServiceImpl implements LibModuleExportService {
 
@@ -62,6 +57,16 @@ public class LibModuleExportServiceImpl implements LibModuleExportService {
         sharedClassService.preLoadAllSharedClasses();
     }
 
+    @Override
+    public void preLoadAllSharedClasses(final ExecutorService executor) {
+        sharedClassService.preLoadAllSharedClasses(executor);
+    }
+
+    @Override
+    public void publishExports() {
+        sharedClassService.publishSharedClasses();
+    }
+
     @Override
     public int exportResources(final String moduleName) throws CabinRuntimeException {
         if (CabinStringUtil.isBlank(moduleName)) {
@@ -74,36 +79,20 @@ public class LibModuleExportServiceImpl implements LibModuleExportService {
             return 0;
         }
 
-        final URL exportResourcesUrl = libModule.getArchive().getResource(EXPORTED_RESOURCE_FILE);
-        if (exportResourcesUrl == null) {
-            LOGGER.info("Failed to find 'conf/export_resources' file from archive of module: " + moduleName);
+        final ExportIndex exportIndex = libModule.getExportIndex();
+        if (exportIndex == null) {
+            LOGGER.info("Failed to find export index or files from archive of module: " + moduleName);
             return -1;
         }
 
-        int exportedCount = 0;
-        final List<String> exportResources = new ArrayList<>();
-        try {
-            final BufferedReader bufferedReader =
-                    new BufferedReader(new InputStreamReader(exportResourcesUrl.openStream()));
-            String resource;
-            while ((resource = bufferedReader.readLine()) != null) {
-                if (CabinStringUtil.isNotBlank(resource)) {
-                    resource = resource.trim();
-                    exportResources.add(resource.trim());
-                    sharedResourceService.addExportClassLoader(resource.trim(), libModule.getClassLoader());
-                    exportedCount++;
-                }
-            }
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(CabinStringUtil.mergeStringArray("Module{" + moduleName + "} export resources:",
-                        exportResources.toArray(new String[0])));
-            }
-        } catch (IOException e) {
-            throw new CabinRuntimeException(
-                    "Failed open conf/export_resources file from archive of module: " + moduleName, e);
+        final List<String> exportResources = exportIndex.getResources();
+        sharedResourceService.addExportClassLoaders(exportResources, libModule.getClassLoader());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(CabinStringUtil.mergeStringArray("Module{" + moduleName + "} export resources:",
+                    exportResources.toArray(new String[0])));
         }
 
-        return exportedCount;
+        return exportResources.size();
     }
 
     @Override
@@ -123,35 +112,20 @@ public class LibModuleExportServiceImpl implements LibModuleExportService {
             }
         }
 
-        final URL exportedClassFile = libModule.getArchive().getResource(EXPORTED_CLASS_FILE);
-        if (exportedClassFile == null) {
-            LOGGER.warn("Failed to find conf/export_classes file from archive of module: " + moduleName);
+        final ExportIndex exportIndex = libModule.getExportIndex();
+        if (exportIndex == null) {
+            LOGGER.warn("Failed to find export index or files from archive of module: " + moduleName);
             return -1;
         }
 
-        int exportedCount = 0;
-        final List<String> exportedClasses = new ArrayList<>();
-        try (final BufferedReader bufferedReader =
-                     new BufferedReader(new InputStreamReader(exportedClassFile.openStream()))) {
-            String clazz;
-            while ((clazz = bufferedReader.readLine()) != null) {
-                if (CabinStringUtil.isNotBlank(clazz)) {
-                    clazz = clazz.trim();
-                    exportedClasses.add(clazz);
-                    sharedClassService.addSharedClass(clazz, libModule);
-                    exportedCount++;
-                }
-            }
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(CabinStringUtil.mergeStringArray("Module{" + moduleName + "} export classes:",
-                        exportedClasses.toArray(new String[0])));
-            }
-        } catch (IOException e) {
-            throw new CabinRuntimeException(
-                    "Failed open conf/export_classes file from archive of module: " + moduleName, e);
+        //visible after publishExports()
+        sharedClassService.addSharedClasses(exportIndex.getPackageClasses(), libModule);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(CabinStringUtil.mergeStringArray("Module{" + moduleName + "} export classes:",
+                    exportIndex.getClasses().toArray(new String[0])));
         }
 
-        return exportedCount;
+        return exportIndex.getClassCount();
     }
 
     @Override
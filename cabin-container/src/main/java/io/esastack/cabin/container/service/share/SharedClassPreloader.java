@@ -0,0 +1,197 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.share;
+
+import io.esastack.cabin.common.exception.CabinRuntimeException;
+import io.esastack.cabin.common.log.CabinLoggerFactory;
+import io.esastack.cabin.common.util.CabinThreadFactory;
+import io.esastack.cabin.container.domain.LibModule;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import static io.esastack.cabin.common.constant.Constants.CABIN_PRELOAD_THREADS;
+
+/**
+ * Loads the exported classes of the lib modules on a bounded pool. Classes are partitioned by module and split into
+ * chunks, each chunk is loaded with the classloader of its module as the TCCL.
+ * The exports of all the modules are published before preloading, so a class whose superclass or interface is
+ * exported by another module could be loaded at once; a class failed to load is not retried, the failure is recorded
+ * by the miss caches of the classloaders, or is permanent as a {@link LinkageError}.
+ */
+class SharedClassPreloader {
+
+    private static final Logger LOGGER = CabinLoggerFactory.getLogger(SharedClassPreloader.class);
+
+    private static final int CHUNK_SIZE = 256;
+
+    private final int parallelism;
+
+    private final BiFunction<String, LibModule, Class<?>> classLoading;
+
+    SharedClassPreloader(final BiFunction<String, LibModule, Class<?>> classLoading) {
+        this(Integer.getInteger(CABIN_PRELOAD_THREADS, Runtime.getRuntime().availableProcessors()), classLoading);
+    }
+
+    SharedClassPreloader(final int parallelism, final BiFunction<String, LibModule, Class<?>> classLoading) {
+        this.parallelism = Math.max(1, parallelism);
+        this.classLoading = classLoading;
+    }
+
+    /**
+     * Load the classes on a pool of the configured parallelism, which is shut down after loaded.
+     * @return preload statistics of the modules, in the order of the first exported class of each module
+     */
+    Map<String, ModulePreload> preload(final Map<String, LibModule> classToModuleMap) {
+        final ExecutorService executor = parallelism > 1
+                ? Executors.newFixedThreadPool(parallelism, new CabinThreadFactory("SharedClassPreloadThread"))
+                : null;
+        try {
+            return preload(classToModuleMap, executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @param executor pool owned by the caller, the classes are loaded in the current thread if null
+     * @return preload statistics of the modules, in the order of the first exported class of each module
+     */
+    Map<String, ModulePreload> preload(final Map<String, LibModule> classToModuleMap,
+                                       final ExecutorService executor) {
+        final Map<LibModule, List<String>> classesOfModules = new LinkedHashMap<>();
+        classToModuleMap.forEach((className, module) ->
+                classesOfModules.computeIfAbsent(module, m -> new ArrayList<>()).add(className));
+        final Map<LibModule, ModulePreload> preloads = new LinkedHashMap<>();
+        classesOfModules.forEach((module, classes) -> preloads.put(module, new ModulePreload(classes.size())));
+
+        final Map<LibModule, Queue<String>> unloaded = load(classesOfModules, preloads, executor);
+        final Map<String, ModulePreload> result = new LinkedHashMap<>();
+        preloads.forEach((module, preload) -> {
+            final Queue<String> failed = unloaded.get(module);
+            if (failed != null && LOGGER.isDebugEnabled()) {
+                for (String className : failed) {
+                    LOGGER.debug(String.format("Could not load class %s which is exported by module %s from it!",
+                            className, module.getName()));
+                }
+            }
+            LOGGER.info("Preloaded {} of {} classes exported by module {} in {} ms",
+                    preload.getLoadedCount(), preload.getClassCount(), module.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(preload.getLoadNanos()));
+            result.put(module.getName(), preload);
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Map<LibModule, Queue<String>> load(final Map<LibModule, List<String>> classesOfModules,
+                                               final Map<LibModule, ModulePreload> preloads,
+                                               final ExecutorService executor) {
+        final Map<LibModule, Queue<String>> failures = new LinkedHashMap<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        classesOfModules.forEach((module, classes) -> {
+            final Queue<String> failed = new ConcurrentLinkedQueue<>();
+            failures.put(module, failed);
+            for (int from = 0; from < classes.size(); from += CHUNK_SIZE) {
+                final List<String> chunk = classes.subList(from, Math.min(classes.size(), from + CHUNK_SIZE));
+                tasks.add(() -> loadChunk(module, chunk, preloads.get(module), failed));
+            }
+        });
+
+        if (executor == null) {
+            tasks.forEach(Runnable::run);
+            return failures;
+        }
+        final List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CabinRuntimeException("Interrupted while preloading shared classes", e);
+            } catch (ExecutionException e) {
+                throw new CabinRuntimeException("Failed to preload shared classes", e.getCause());
+            }
+        }
+        return failures;
+    }
+
+    private void loadChunk(final LibModule module, final List<String> classes, final ModulePreload preload,
+                           final Queue<String> failed) {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader tccl = thread.getContextClassLoader();
+        thread.setContextClassLoader(module.getClassLoader());
+        final long start = System.nanoTime();
+        try {
+            for (String className : classes) {
+                if (classLoading.apply(className, module) == null) {
+                    failed.add(className);
+                } else {
+                    preload.loaded.incrementAndGet();
+                }
+            }
+        } finally {
+            preload.loadNanos.add(System.nanoTime() - start);
+            thread.setContextClassLoader(tccl);
+        }
+    }
+
+    /**
+     * Preload statistics of a module, the load time is summed over all the threads loading classes of the module.
+     */
+    static final class ModulePreload {
+
+        private final int classCount;
+
+        private final AtomicInteger loaded = new AtomicInteger();
+
+        private final LongAdder loadNanos = new LongAdder();
+
+        private ModulePreload(final int classCount) {
+            this.classCount = classCount;
+        }
+
+        int getClassCount() {
+            return classCount;
+        }
+
+        int getLoadedCount() {
+            return loaded.get();
+        }
+
+        long getLoadNanos() {
+            return loadNanos.sum();
+        }
+    }
+}
@@ -0,0 +1,495 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.share;
+
+import io.esastack.cabin.common.exception.CabinRuntimeException;
+import io.esastack.cabin.container.domain.LibModule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable routing table of the exported classes and packages. Instead of a map entry and a full class name per
+ * exported class, classes are numbered package by package with the simple names of a package sorted and packed into
+ * a single char array; the package, the exporting module and the loaded class of each class are kept in arrays
+ * indexed by the class number, with the packages and modules interned into ids. Classes are found by an open
+ * addressing index of the hashes of the class names, verified against the package and simple name without creating
+ * any string. The loaded classes are indexed again by a separate index holding only them, which is as small as the
+ * map of the loaded classes it replaces and stays in cache, so lookups of the loaded classes never touch the index
+ * of all the classes.
+ * <p>
+ * The table is rebuilt and swapped as a whole while the module set changes, so reads need no locking. Only the
+ * loaded classes are set after building.
+ */
+final class SharedClassRoutingTable {
+
+    private static final int[] NO_MODULES = new int[0];
+
+    static final SharedClassRoutingTable EMPTY = new Builder(null, null).build();
+
+    private final LibModule[] modules;
+
+    //open addressing table of the packages, the slot of a package is its id
+    private final String[] packageNames;
+
+    //modules which export the package by the export info
+    private final int[][] packageExporters;
+
+    private final int packageMask;
+
+    private final int packageCount;
+
+    //simple name of class n is chars [nameOffsets[n], nameOffsets[n + 1]) of nameChars
+    private final char[] nameChars;
+
+    private final int[] nameOffsets;
+
+    private final int[] classPackages;
+
+    private final int[] classModules;
+
+    private final AtomicReferenceArray<Class<?>> classes;
+
+    //open addressing index of the classes: the tags of the class names, probed alone by the misses, and the numbers
+    private final int[] classTags;
+
+    private final int[] classNumbers;
+
+    private final int classMask;
+
+    //index of the loaded classes, written with the lock of this table and read racily: a class just loaded by
+    //another thread may be missed, then it is got from its module again
+    private volatile LoadedIndex loadedIndex = new LoadedIndex(16);
+
+    private int loadedCount;
+
+    private SharedClassRoutingTable(final Builder builder) {
+        final Set<String> packages = new LinkedHashSet<>(builder.classes.keySet());
+        packages.addAll(builder.exporters.keySet());
+        this.packageCount = packages.size();
+        this.packageMask = capacityOf(packageCount) - 1;
+        this.packageNames = new String[packageMask + 1];
+        this.packageExporters = new int[packageMask + 1][];
+
+        int classCount = 0;
+        int charCount = 0;
+        for (Map<String, LibModule> packageClasses : builder.classes.values()) {
+            classCount += packageClasses.size();
+            for (String simpleName : packageClasses.keySet()) {
+                charCount += simpleName.length();
+            }
+        }
+        this.nameChars = new char[charCount];
+        this.nameOffsets = new int[classCount + 1];
+        this.classPackages = new int[classCount];
+        this.classModules = new int[classCount];
+        this.classes = new AtomicReferenceArray<>(classCount);
+        this.classMask = capacityOf(classCount) - 1;
+        this.classTags = new int[classMask + 1];
+        this.classNumbers = new int[classMask + 1];
+
+        int number = 0;
+        for (String packageName : packages) {
+            int slot = mix(packageName.hashCode()) & packageMask;
+            while (packageNames[slot] != null) {
+                slot = (slot + 1) & packageMask;
+            }
+            packageNames[slot] = packageName.intern();
+            packageExporters[slot] = builder.indexesOf(builder.exporters.get(packageName));
+            final Map<String, LibModule> packageClasses = builder.classes.get(packageName);
+            if (packageClasses != null) {
+                for (Map.Entry<String, LibModule> entry : packageClasses.entrySet()) {
+                    final String simpleName = entry.getKey();
+                    simpleName.getChars(0, simpleName.length(), nameChars, nameOffsets[number]);
+                    nameOffsets[number + 1] = nameOffsets[number] + simpleName.length();
+                    classPackages[number] = slot;
+                    classModules[number] = builder.indexOf(entry.getValue());
+                    index(number, className(packageName, simpleName).hashCode());
+                    number++;
+                }
+            }
+        }
+        this.modules = builder.modules.toArray(new LibModule[0]);
+    }
+
+    int getClassCount() {
+        return classPackages.length;
+    }
+
+    int getPackageCount() {
+        return packageCount;
+    }
+
+    /**
+     * @return the module exporting the class, null if the class is not in the table
+     */
+    LibModule getModule(final String className) {
+        final int number = numberOf(className);
+        return number < 0 ? null : modules[classModules[number]];
+    }
+
+    /**
+     * Same as {@link #getModule(String)}, without creating the class name.
+     */
+    LibModule getModule(final String packageName, final String simpleName) {
+        int hash = packageName.hashCode();
+        if (!packageName.isEmpty()) {
+            hash = 31 * hash + '.';
+        }
+        for (int i = 0; i < simpleName.length(); i++) {
+            hash = 31 * hash + simpleName.charAt(i);
+        }
+        final int tag = tagOf(hash);
+        int slot = tag & classMask;
+        int slotTag;
+        while ((slotTag = classTags[slot]) != 0) {
+            if (slotTag == tag && matches(classNumbers[slot], packageName, simpleName)) {
+                return modules[classModules[classNumbers[slot]]];
+            }
+            slot = (slot + 1) & classMask;
+        }
+        return null;
+    }
+
+    /**
+     * @return the loaded class, null if the class is not in the table or has not been loaded
+     * (or is being loaded by another thread)
+     */
+    Class<?> getLoadedClass(final String className) {
+        final LoadedIndex index = loadedIndex;
+        final int tag = tagOf(className.hashCode());
+        final int mask = index.tags.length - 1;
+        int slot = tag & mask;
+        int slotTag;
+        while ((slotTag = index.tags[slot]) != 0) {
+            if (slotTag == tag && className.equals(index.names[slot])) {
+                return index.classes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @return false if the class is not in the table
+     */
+    boolean setLoadedClass(final String className, final Class<?> clazz) {
+        final int number = numberOf(className);
+        if (number < 0) {
+            return false;
+        }
+        if (classes.getAndSet(number, clazz) == null) {
+            indexLoadedClass(className, clazz);
+        }
+        return true;
+    }
+
+    /**
+     * @return modules which export the package by the export info, empty if none
+     */
+    List<LibModule> getPackageExporters(final String packageName) {
+        final int[] exporterIndexes = exportersOf(packageName);
+        if (exporterIndexes.length == 0) {
+            return Collections.emptyList();
+        }
+        final List<LibModule> exporters = new ArrayList<>(exporterIndexes.length);
+        for (int module : exporterIndexes) {
+            exporters.add(modules[module]);
+        }
+        return exporters;
+    }
+
+    boolean isPackageExported(final String packageName) {
+        return exportersOf(packageName).length > 0;
+    }
+
+    void forEachClass(final BiConsumer<String, LibModule> consumer) {
+        for (int i = 0; i < classPackages.length; i++) {
+            consumer.accept(className(i), modules[classModules[i]]);
+        }
+    }
+
+    void forEachLoadedClass(final BiConsumer<String, Class<?>> consumer) {
+        for (int i = 0; i < classPackages.length; i++) {
+            final Class<?> clazz = classes.get(i);
+            if (clazz != null) {
+                consumer.accept(className(i), clazz);
+            }
+        }
+    }
+
+    private void index(final int number, final int hash) {
+        final int tag = tagOf(hash);
+        int slot = tag & classMask;
+        while (classTags[slot] != 0) {
+            slot = (slot + 1) & classMask;
+        }
+        classTags[slot] = tag;
+        classNumbers[slot] = number;
+    }
+
+    private synchronized void indexLoadedClass(final String className, final Class<?> clazz) {
+        final LoadedIndex index = loadedIndex;
+        if (++loadedCount * 2 > index.tags.length) {
+            final LoadedIndex grown = new LoadedIndex(index.tags.length << 1);
+            for (int slot = 0; slot < index.tags.length; slot++) {
+                if (index.tags[slot] != 0) {
+                    grown.add(index.tags[slot], index.names[slot], index.classes[slot]);
+                }
+            }
+            grown.add(tagOf(className.hashCode()), className, clazz);
+            loadedIndex = grown;
+        } else {
+            index.add(tagOf(className.hashCode()), className, clazz);
+        }
+    }
+
+    /**
+     * @return the class number, -1 if the class is not in the table
+     */
+    private int numberOf(final String className) {
+        final int tag = tagOf(className.hashCode());
+        int slot = tag & classMask;
+        int slotTag;
+        while ((slotTag = classTags[slot]) != 0) {
+            if (slotTag == tag && matches(classNumbers[slot], className)) {
+                return classNumbers[slot];
+            }
+            slot = (slot + 1) & classMask;
+        }
+        return -1;
+    }
+
+    private boolean matches(final int number, final String className) {
+        final String packageName = packageNames[classPackages[number]];
+        final int from = nameOffsets[number];
+        final int offset = className.length() - (nameOffsets[number + 1] - from);
+        if (offset != (packageName.isEmpty() ? 0 : packageName.length() + 1)) {
+            return false;
+        }
+        for (int i = offset; i < className.length(); i++) {
+            if (className.charAt(i) != nameChars[from + i - offset]) {
+                return false;
+            }
+        }
+        return packageName.isEmpty() || className.charAt(offset - 1) == '.' && className.startsWith(packageName);
+    }
+
+    private boolean matches(final int number, final String packageName, final String simpleName) {
+        final int from = nameOffsets[number];
+        if (nameOffsets[number + 1] - from != simpleName.length()
+                || !packageNames[classPackages[number]].equals(packageName)) {
+            return false;
+        }
+        for (int i = 0; i < simpleName.length(); i++) {
+            if (simpleName.charAt(i) != nameChars[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String simpleName(final int number) {
+        return new String(nameChars, nameOffsets[number], nameOffsets[number + 1] - nameOffsets[number]);
+    }
+
+    private String className(final int number) {
+        return className(packageNames[classPackages[number]], simpleName(number));
+    }
+
+    private int[] exportersOf(final String packageName) {
+        int slot = mix(packageName.hashCode()) & packageMask;
+        String name;
+        while ((name = packageNames[slot]) != null) {
+            if (name.equals(packageName)) {
+                return packageExporters[slot];
+            }
+            slot = (slot + 1) & packageMask;
+        }
+        return NO_MODULES;
+    }
+
+    private static int capacityOf(final int size) {
+        int capacity = 2;
+        while (capacity * 3 / 4 < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * The murmur3 finalizer: names in a package differ in few chars, so their string hashes cluster under linear
+     * probing.
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return the mixed hash, never 0 which marks the empty slots
+     */
+    private static int tagOf(final int hash) {
+        final int tag = mix(hash);
+        return tag == 0 ? 1 : tag;
+    }
+
+    private static String className(final String packageName, final String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * Open addressing index of the loaded classes, verified by the names kept next to the classes, so the classes are
+     * not touched until found. The tag of a slot is written last, after which the slot is probed.
+     */
+    private static final class LoadedIndex {
+
+        private final int[] tags;
+
+        private final String[] names;
+
+        private final Class<?>[] classes;
+
+        private LoadedIndex(final int capacity) {
+            this.tags = new int[capacity];
+            this.names = new String[capacity];
+            this.classes = new Class<?>[capacity];
+        }
+
+        private void add(final int tag, final String name, final Class<?> clazz) {
+            final int mask = tags.length - 1;
+            int slot = tag & mask;
+            while (tags[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            names[slot] = name;
+            classes[slot] = clazz;
+            tags[slot] = tag;
+        }
+    }
+
+    /**
+     * Builder of a new table from the current table, with classes and packages added or modules removed.
+     */
+    static final class Builder {
+
+        private final Map<LibModule, Integer> moduleIndexes = new IdentityHashMap<>();
+
+        private final List<LibModule> modules = new ArrayList<>();
+
+        //package -> simple name -> module, sorted so that the simple names of a package are sorted
+        private final Map<String, TreeMap<String, LibModule>> classes = new HashMap<>();
+
+        private final Map<String, List<LibModule>> exporters = new HashMap<>();
+
+        private final Map<String, Class<?>> loadedClasses = new HashMap<>();
+
+        /**
+         * @param table          the current table to copy, may be null
+         * @param excludedModule name of the module not to copy, may be null
+         */
+        Builder(final SharedClassRoutingTable table, final String excludedModule) {
+            if (table == null) {
+                return;
+            }
+            for (int i = 0; i < table.classPackages.length; i++) {
+                final LibModule module = table.modules[table.classModules[i]];
+                if (!module.getName().equals(excludedModule)) {
+                    final String packageName = table.packageNames[table.classPackages[i]];
+                    final String simpleName = table.simpleName(i);
+                    addClass(packageName, simpleName, module);
+                    final Class<?> clazz = table.classes.get(i);
+                    if (clazz != null) {
+                        loadedClasses.put(className(packageName, simpleName), clazz);
+                    }
+                }
+            }
+            for (int slot = 0; slot < table.packageNames.length; slot++) {
+                if (table.packageNames[slot] != null) {
+                    for (int exporter : table.packageExporters[slot]) {
+                        if (!table.modules[exporter].getName().equals(excludedModule)) {
+                            addPackage(table.packageNames[slot], table.modules[exporter]);
+                        }
+                    }
+                }
+            }
+        }
+
+        Builder addClass(final String className, final LibModule module) {
+            final int index = className.lastIndexOf('.');
+            return addClass(index > 0 ? className.substring(0, index) : "", className.substring(index + 1), module);
+        }
+
+        Builder addClass(final String packageName, final String simpleName, final LibModule module) {
+            final LibModule prevModule = classes.computeIfAbsent(packageName, name -> new TreeMap<>())
+                    .putIfAbsent(simpleName, module);
+            if (prevModule != null && prevModule != module) {
+                throw new CabinRuntimeException(String.format("Class export conflicted, %s is exported by module" +
+                        " %s and %s", className(packageName, simpleName), prevModule.getName(), module.getName()));
+            }
+            return this;
+        }
+
+        Builder addPackage(final String packageName, final LibModule module) {
+            final List<LibModule> modules = exporters.computeIfAbsent(packageName, name -> new ArrayList<>(1));
+            if (!modules.contains(module)) {
+                modules.add(module);
+            }
+            return this;
+        }
+
+        Builder addLoadedClass(final String className, final Class<?> clazz) {
+            loadedClasses.put(className, clazz);
+            return this;
+        }
+
+        SharedClassRoutingTable build() {
+            final SharedClassRoutingTable table = new SharedClassRoutingTable(this);
+            loadedClasses.forEach(table::setLoadedClass);
+            return table;
+        }
+
+        private int[] indexesOf(final List<LibModule> modules) {
+            if (modules == null || modules.isEmpty()) {
+                return NO_MODULES;
+            }
+            final int[] indexes = new int[modules.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = indexOf(modules.get(i));
+            }
+            return indexes;
+        }
+
+        private int indexOf(final LibModule module) {
+            return moduleIndexes.computeIfAbsent(module, m -> {
+                modules.add(m);
+                return modules.size() - 1;
+            });
+        }
+    }
+}
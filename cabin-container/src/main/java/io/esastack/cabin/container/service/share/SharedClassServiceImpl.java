@@ -21,18 +21,29 @@ import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.common.log.CabinLoggerFactory;
 import io.esastack.cabin.common.util.CabinStringUtil;
 import io.esastack.cabin.container.domain.LibModule;
+import io.esastack.cabin.container.initialize.StartupTimeline;
 import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
-import io.esastack.cabin.loader.jar.Handler;
+import io.esastack.cabin.container.service.loader.NegativeLookupCache;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Different modules could export same packages, but should not export same classes!
+ * <p>
+ * Exported classes and packages are staged in concurrent maps while the modules are exporting, then published into
+ * a compact {@link SharedClassRoutingTable}, which is swapped as a whole while modules are installed or uninstalled.
+ * Nothing added is visible to the lookups before the next publishing, so the exports of a module become visible
+ * together.
  */
 public class SharedClassServiceImpl implements SharedClassService {
 
@@ -42,18 +53,30 @@ public class SharedClassServiceImpl implements SharedClassService {
 
     private final AtomicBoolean preLoaded = new AtomicBoolean(false);
 
+    private volatile SharedClassRoutingTable routingTable = SharedClassRoutingTable.EMPTY;
+
+    //Loaded classes which are not in the routing table: staged classes and classes found by exported packages.
     private final ConcurrentMap<String, Class<?>> cachedClasses;
 
-    private final ConcurrentMap<String, LibModule> classToModuleMap;
+    //Classes added since the last publishing, not visible to lookups; written with the lock of this service.
+    //Package -> simple name -> module.
+    private final ConcurrentMap<String, ConcurrentMap<String, LibModule>> pendingClasses;
 
     //Map<LibModule, Object> is used as concurrent hash set; one package may be exported by multiple module.
+    //Packages exported since the last publishing, not visible to lookups.
     private final Map<String, Map<LibModule, Object>> packageToModuleMap;
 
     private final Map<String, Map<String, Object>> moduleExportedClasses;
 
+    //Packages whose exporting modules, including the exporters of the parent packages, are none.
+    private final NegativeLookupCache packageMisses = new NegativeLookupCache();
+
+    //Classes neither exported nor in any exported package.
+    private final NegativeLookupCache classMisses = new NegativeLookupCache();
+
     public SharedClassServiceImpl() {
         this.cachedClasses = new ConcurrentHashMap<>();
-        this.classToModuleMap = new ConcurrentHashMap<>();
+        this.pendingClasses = new ConcurrentHashMap<>();
         this.packageToModuleMap = new ConcurrentHashMap<>();
         this.moduleExportedClasses = new ConcurrentHashMap<>();
     }
@@ -69,20 +92,83 @@ public class SharedClassServiceImpl implements SharedClassService {
         modules.put((LibModule) module, sentinel);
     }
 
+    /**
+     * Move the staged classes and packages into a new routing table, lookups are never blocked.
+     */
+    @Override
+    public synchronized void publishSharedClasses() {
+        if (pendingClasses.isEmpty() && packageToModuleMap.isEmpty()) {
+            return;
+        }
+        final Map<String, List<LibModule>> packages = new HashMap<>();
+        packageToModuleMap.forEach((packageName, modules) ->
+                packages.put(packageName, new ArrayList<>(modules.keySet())));
+
+        final SharedClassRoutingTable.Builder builder = new SharedClassRoutingTable.Builder(routingTable, null);
+        pendingClasses.forEach((packageName, classes) ->
+                classes.forEach((simpleName, module) -> builder.addClass(packageName, simpleName, module)));
+        packages.forEach((packageName, modules) -> modules.forEach(module -> builder.addPackage(packageName, module)));
+        //classes found by the package walk before published are moved into the table
+        final Map<String, LibModule> loadedClasses = new HashMap<>();
+        cachedClasses.forEach((className, clazz) -> {
+            final LibModule module = getPendingModule(className);
+            if (module != null) {
+                builder.addLoadedClass(className, clazz);
+                loadedClasses.put(className, module);
+            }
+        });
+        final SharedClassRoutingTable table = builder.build();
+        routingTable = table;
+        //misses of the newly exported packages and classes are dropped
+        packageMisses.clear();
+        classMisses.clear();
+
+        pendingClasses.clear();
+        packages.forEach((packageName, modules) -> packageToModuleMap.computeIfPresent(packageName, (name, map) -> {
+            modules.forEach(map::remove);
+            return map.isEmpty() ? null : map;
+        }));
+        loadedClasses.forEach((className, module) -> {
+            cachedClasses.remove(className);
+            final Map<String, Object> exportedClasses = moduleExportedClasses.get(module.getName());
+            if (exportedClasses != null) {
+                exportedClasses.remove(className);
+            }
+        });
+        LOGGER.info("Published {} shared classes of {} packages", table.getClassCount(), table.getPackageCount());
+    }
+
     /**
      * No Exception should be thrown, because the loading class may extends superclass or implement interface from
      * other lib modules or biz modules; In these situations, we just ignore the failure.
+     * Classes are loaded in parallel by {@link SharedClassPreloader}.
      */
     @Override
     public void preLoadAllSharedClasses() {
+        preLoadAllSharedClasses(null);
+    }
+
+    @Override
+    public void preLoadAllSharedClasses(final ExecutorService executor) {
         if (preLoaded.compareAndSet(false, true)) {
-            classToModuleMap.forEach((className, module) -> {
+            final SharedClassRoutingTable table = routingTable;
+            final Map<String, LibModule> classes = new HashMap<>(table.getClassCount());
+            table.forEachClass(classes::put);
+            final SharedClassPreloader preloader = new SharedClassPreloader((className, module) -> {
                 final Class<?> clazz = getClassFromModule(className, module);
-                if (clazz == null && LOGGER.isDebugEnabled()) {
-                    LOGGER.debug(String.format("Could not load class %s which is exported by module %s from it!",
-                            className, module.getName()));
+                if (clazz != null) {
+                    table.setLoadedClass(className, clazz);
                 }
+                return clazz;
             });
+            final StartupTimeline.Span span = StartupTimeline.get().start(StartupTimeline.CATEGORY_EXPORT, "preload");
+            final Map<String, SharedClassPreloader.ModulePreload> preloads =
+                    executor == null ? preloader.preload(classes) : preloader.preload(classes, executor);
+            int loaded = 0;
+            for (SharedClassPreloader.ModulePreload preload : preloads.values()) {
+                loaded += preload.getLoadedCount();
+            }
+            span.count("classes", classes.size()).count("loadedClasses", loaded).end();
         }
     }
 
@@ -92,28 +178,54 @@ public class SharedClassServiceImpl implements SharedClassService {
      * If load a class while exporting a module, it may implement an interface or inherit a super class which is
      * contained and exported by an other module which has not been exported; In this situation, the interface or super
      * class loading may fail.
+     * Most of the classes looked up here are not shared at all, the misses of the classes which no module exports any
+     * package of are memoized until the module set changed.
      */
     @Override
     public Class<?> getSharedClass(final String className) {
+        final Class<?> clazz = routingTable.getLoadedClass(className);
+        return clazz != null ? clazz : lookupSharedClass(className);
+    }
+
+    /**
+     * Kept out of {@link #getSharedClass(String)}, so that the lookups of the loaded classes are small enough to be
+     * inlined.
+     */
+    private Class<?> lookupSharedClass(final String className) {
+        final long generation = classMisses.generation();
+        final SharedClassRoutingTable table = routingTable;
         Class<?> clazz = getCachedClass(className);
         if (clazz != null) {
             return clazz;
         }
 
-        clazz = getAndCacheClassFromModule(className);
-        if (clazz != null) {
-            return clazz;
+        final LibModule module = table.getModule(className);
+        if (module != null) {
+            clazz = getClassFromModule(className, module);
+            if (clazz != null) {
+                table.setLoadedClass(className, clazz);
+                return clazz;
+            }
         }
 
         //Get the classes not scanned while re-package the lib modules, such as classes generated by cglib by Spring.
+        if (classMisses.contains(className)) {
+            return null;
+        }
         int index = className.lastIndexOf(".");
+        final String classPackage = index > 0 ? className.substring(0, index) : null;
+        if (classPackage != null && packageMisses.contains(classPackage)) {
+            return null;
+        }
+        boolean exported = false;
         while (index > 0) {
             final String packageName = className.substring(0, index);
-            final Map<LibModule, Object> modules = packageToModuleMap.get(packageName);
-            if (modules != null && !modules.isEmpty()) {
+            final List<LibModule> modules = table.getPackageExporters(packageName);
+            if (!modules.isEmpty()) {
+                exported = true;
                 Class<?> prevLoadedClass = null;
                 LibModule prevLoadedModule = null;
-                for (LibModule libModule : modules.keySet()) {
+                for (LibModule libModule : modules) {
                     clazz = getClassFromModule(className, libModule);
                     if (clazz != null) {
                         if (prevLoadedClass != null) {
@@ -141,6 +253,13 @@ public class SharedClassServiceImpl implements SharedClassService {
             }
             index = packageName.lastIndexOf(".");
         }
+        //a class of an exported package may be defined later at runtime, so only the unexported ones are memoized
+        if (!exported) {
+            if (classPackage != null) {
+                packageMisses.add(classPackage, generation);
+            }
+            classMisses.add(className, generation);
+        }
         return null;
     }
 
@@ -149,32 +268,103 @@ public class SharedClassServiceImpl implements SharedClassService {
 
     }
 
+    /**
+     * Same as {@link #addSharedClasses(Collection, Module)}, the class is staged until the next publishing.
+     */
     @Override
     public void addSharedClass(final String className, final Module module) {
         if (className == null || module == null) {
             return;
         }
-        final Module prevModule = classToModuleMap.putIfAbsent(className, (LibModule) module);
-        if (prevModule != null && prevModule != module) {
-            throw new CabinRuntimeException(String.format("Class export conflicted, %s is exported by module" +
-                    " %s and %s", className, prevModule.getName(), module.getName()));
+        addSharedClasses(Collections.singletonList(className), module);
+    }
+
+    @Override
+    public void addSharedClasses(final Collection<String> classNames, final Module module) {
+        if (classNames == null || classNames.isEmpty() || module == null) {
+            return;
+        }
+        final Map<String, List<String>> packageClasses = new HashMap<>();
+        for (String className : classNames) {
+            if (className != null) {
+                final int index = className.lastIndexOf('.');
+                packageClasses.computeIfAbsent(index > 0 ? className.substring(0, index) : "",
+                        key -> new ArrayList<>()).add(className.substring(index + 1));
+            }
+        }
+        addSharedClasses(packageClasses, module);
+    }
+
+    /**
+     * All the classes are checked before any of them is added, nothing is added if any class conflicts; the classes
+     * become visible together at the next {@link #publishSharedClasses()}.
+     */
+    @Override
+    public synchronized void addSharedClasses(final Map<String, ? extends Collection<String>> packageClasses,
+                                              final Module module) {
+        if (packageClasses == null || packageClasses.isEmpty() || module == null) {
+            return;
         }
+        final SharedClassRoutingTable table = routingTable;
+        packageClasses.forEach((packageName, simpleNames) -> {
+            final Map<String, LibModule> pending = pendingClasses.get(packageName);
+            for (String simpleName : simpleNames) {
+                Module prevModule = table.getModule(packageName, simpleName);
+                if (prevModule == null && pending != null) {
+                    prevModule = pending.get(simpleName);
+                }
+                if (prevModule != null && prevModule != module) {
+                    throw exportConflicted(packageName.isEmpty() ? simpleName : packageName + "." + simpleName,
+                            prevModule, module);
+                }
+            }
+        });
+        packageClasses.forEach((packageName, simpleNames) -> {
+            final Map<String, LibModule> pending = pendingClasses.computeIfAbsent(packageName,
+                    key -> new ConcurrentHashMap<>((int) (simpleNames.size() / 0.75f) + 1));
+            for (String simpleName : simpleNames) {
+                pending.put(simpleName, (LibModule) module);
+            }
+        });
     }
 
     @Override
     public Map<String, Class<?>> getSharedClassMap() {
         preLoadAllSharedClasses();
-        return Collections.unmodifiableMap(cachedClasses);
+        final Map<String, Class<?>> classes = new HashMap<>();
+        routingTable.forEachLoadedClass(classes::put);
+        classes.putAll(cachedClasses);
+        return Collections.unmodifiableMap(classes);
     }
 
     @Override
     public int getSharedClassCount() {
-        return classToModuleMap.size();
+        return routingTable.getClassCount();
     }
 
     @Override
     public boolean containsClass(final String className) {
-        return classToModuleMap.containsKey(className);
+        return routingTable.getModule(className) != null;
+    }
+
+    private LibModule getPendingModule(final String className) {
+        final int index = className.lastIndexOf('.');
+        final Map<String, LibModule> classes = pendingClasses.get(index > 0 ? className.substring(0, index) : "");
+        return classes == null ? null : classes.get(className.substring(index + 1));
+    }
+
+    @Override
+    public boolean isPackageExported(final String packageName) {
+        final SharedClassRoutingTable table = routingTable;
+        String name = packageName;
+        while (!name.isEmpty()) {
+            if (table.isPackageExported(name)) {
+                return true;
+            }
+            final int index = name.lastIndexOf(".");
+            name = index > 0 ? name.substring(0, index) : "";
+        }
+        return false;
     }
 
     /**
@@ -182,12 +372,16 @@ public class SharedClassServiceImpl implements SharedClassService {
      * @param moduleName module to destroy
      */
     @Override
-    public void destroyModuleClasses(final String moduleName) {
-        classToModuleMap.entrySet().removeIf(entry -> entry.getValue().getName().equals(moduleName));
+    public synchronized void destroyModuleClasses(final String moduleName) {
+        pendingClasses.entrySet().removeIf(entry -> {
+            entry.getValue().entrySet().removeIf(en -> en.getValue().getName().equals(moduleName));
+            return entry.getValue().isEmpty();
+        });
         packageToModuleMap.entrySet().removeIf(entry -> {
             entry.getValue().entrySet().removeIf(en -> en.getKey().getName().equals(moduleName));
             return entry.getValue().isEmpty();
         });
+        routingTable = new SharedClassRoutingTable.Builder(routingTable, moduleName).build();
         final Map<String, Object> classesMap = moduleExportedClasses.remove(moduleName);
         if (classesMap == null || classesMap.isEmpty()) {
             return;
@@ -197,21 +391,14 @@ public class SharedClassServiceImpl implements SharedClassService {
         }
     }
 
-    private Class<?> getCachedClass(final String className) {
-        return cachedClasses.get(className);
+    private static CabinRuntimeException exportConflicted(final String className, final Module prevModule,
+                                                          final Module module) {
+        return new CabinRuntimeException(String.format("Class export conflicted, %s is exported by module" +
+                " %s and %s", className, prevModule.getName(), module.getName()));
     }
 
-    private Class<?> getAndCacheClassFromModule(final String className) {
-        final LibModule module = classToModuleMap.get(className);
-        if (module != null) {
-            final Class<?> result = getClassFromModule(className, module);
-            if (result != null) {
-                cachedClasses.put(className, result);
-                storeModuleExportedClass(module.getName(), className);
-                return result;
-            }
-        }
-        return null;
+    private Class<?> getCachedClass(final String className) {
+        return cachedClasses.get(className);
     }
 
     private void storeModuleExportedClass(final String moduleName, final String clazzName) {
@@ -221,15 +408,12 @@ public class SharedClassServiceImpl implements SharedClassService {
 
     private Class<?> getClassFromModule(final String className, final LibModule module) {
         try {
-            Handler.setUseFastConnectionExceptions(true);
             final LibModuleClassLoader libModuleClassLoader = (LibModuleClassLoader) module.getClassLoader();
             if (libModuleClassLoader != null) {
                 return libModuleClassLoader.loadClassFromClasspath(className);
             }
         } catch (Throwable e) {
             //NOP
-        } finally {
-            Handler.setUseFastConnectionExceptions(false);
         }
         return null;
     }
@@ -19,12 +19,26 @@ import io.esastack.cabin.api.service.loader.ClassLoaderService;
 import io.esastack.cabin.api.service.share.SharedResourceService;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Index of the exported resources: the exporting classloaders of each resource name, and the sorted resource names
+ * for enumerating the exported resources under a directory.
+ * Resources are exported while modules are exported and installed, and looked up on every resource loading, so the
+ * lists are copy-on-write and never locked by the readers.
+ */
 public class SharedResourceServiceImpl implements SharedResourceService {
 
-    private final ConcurrentHashMap<String, List<ClassLoader>> resourceClassLoaderMap = new ConcurrentHashMap<>();
+    private final Map<String, CopyOnWriteArrayList<ClassLoader>> resourceClassLoaderMap = new ConcurrentHashMap<>();
+
+    private final NavigableSet<String> resourceNames = new ConcurrentSkipListSet<>();
+
     private volatile ClassLoaderService classLoaderService;
 
     public void setClassLoaderService(ClassLoaderService classLoaderService) {
@@ -36,18 +50,59 @@ public class SharedResourceServiceImpl implements SharedResourceService {
         return resourceClassLoaderMap.get(name);
     }
 
+    @Override
+    public List<String> getResourceNames(final String prefix) {
+        return new ArrayList<>(resourceNames.subSet(prefix, true, prefix + Character.MAX_VALUE, false));
+    }
+
     @Override
     public void addExportClassLoader(final String resourceName, final ClassLoader classLoader) {
-        List<ClassLoader> classLoaders = resourceClassLoaderMap.computeIfAbsent(resourceName, s -> new ArrayList<>());
-        classLoaders.add(classLoader);
+        addClassLoader(resourceClassLoaderMap, resourceName, classLoader);
+        resourceNames.add(resourceName);
+    }
+
+    @Override
+    public void addExportClassLoaders(final Collection<String> resourceNames, final ClassLoader classLoader) {
+        if (resourceNames == null || resourceNames.isEmpty()) {
+            return;
+        }
+        for (String resourceName : resourceNames) {
+            addClassLoader(resourceClassLoaderMap, resourceName, classLoader);
+        }
+        this.resourceNames.addAll(resourceNames);
     }
 
     @Override
     public void destroyModuleResources(String moduleName) {
         ClassLoader cl = classLoaderService.getLibModuleClassLoader(moduleName);
-        resourceClassLoaderMap.entrySet().removeIf(entry -> {
-            entry.getValue().removeIf(en -> en.equals(cl));
-            return entry.getValue().isEmpty();
+        for (String name : resourceClassLoaderMap.keySet()) {
+            if (removeClassLoader(resourceClassLoaderMap, name, cl)) {
+                resourceNames.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Add and remove in compute, so that a list would never be removed while adding to it.
+     */
+    private static void addClassLoader(final Map<String, CopyOnWriteArrayList<ClassLoader>> classLoaderMap,
+                                       final String name, final ClassLoader classLoader) {
+        classLoaderMap.compute(name, (key, classLoaders) -> {
+            final CopyOnWriteArrayList<ClassLoader> result =
+                    classLoaders == null ? new CopyOnWriteArrayList<>() : classLoaders;
+            result.addIfAbsent(classLoader);
+            return result;
         });
     }
+
+    /**
+     * @return true if no classloader left for the name
+     */
+    private static boolean removeClassLoader(final Map<String, CopyOnWriteArrayList<ClassLoader>> classLoaderMap,
+                                             final String name, final ClassLoader classLoader) {
+        return classLoaderMap.computeIfPresent(name, (key, classLoaders) -> {
+            classLoaders.remove(classLoader);
+            return classLoaders.isEmpty() ? null : classLoaders;
+        }) == null;
+    }
 }
@@ -15,10 +15,14 @@
  */
 package io.esastack.cabin.container;
 
+import io.esastack.cabin.api.service.share.SharedResourceService;
 import io.esastack.cabin.common.constant.Constants;
 import io.esastack.cabin.common.util.CabinContainerUtil;
 import io.esastack.cabin.common.util.ClassLoaderUtils;
+import io.esastack.cabin.container.service.CabinServiceManager;
 import io.esastack.cabin.container.service.loader.BizModuleClassLoader;
+import io.esastack.cabin.container.service.loader.ClassLoadMetrics;
+import io.esastack.cabin.container.service.loader.ClassLoadMetricsMXBean;
 import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
 import io.esastack.cabin.loader.archive.Archive;
 import io.esastack.cabin.loader.util.ArchiveUtils;
@@ -27,9 +31,13 @@ import io.esastack.cabin.support.bootstrap.CabinClasspathLauncher;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 
@@ -78,6 +86,23 @@ public class CabinContainerTest {
         Assert.assertNotNull(libModuleClassLoader.loadClass("io.esastack.cabin.sample.app.CabinTestApp"));
         Assert.assertNotNull(libModuleClassLoader.getResource("export.file"));
         Assert.assertNotNull(libModuleClassLoader.getResources("export.file"));
+        Assert.assertTrue(libModuleClassLoader.getLocalPackageIndex().size() > 0);
+        Assert.assertTrue(libModuleClassLoader.getJarClassPath().isDirect());
+        final Class<?> libClass =
+                libModuleClassLoader.loadClass("io.esastack.cabin.sample.lib.module.CabinTestLibModule");
+        Assert.assertSame(libModuleClassLoader, libClass.getClassLoader());
+        Assert.assertNotNull(libClass.getProtectionDomain().getCodeSource().getLocation());
+        Assert.assertNotNull(libClass.getPackage());
+        Assert.assertTrue(libModuleClassLoader.getDefinedPackageCount() > 0);
+
+        final ClassLoadMetrics metrics = container.getClassLoadMetrics().get("io.esastack_cabin-sample-lib-module");
+        Assert.assertSame(libModuleClassLoader.getClassLoadMetrics(), metrics);
+        Assert.assertTrue(metrics.getCount(ClassLoadMetrics.Source.RECORDS) > 0);
+        Assert.assertTrue(metrics.getCount(ClassLoadMetrics.Source.CABIN) > 0);
+        final TabularData moduleMetrics = (TabularData) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName(ClassLoadMetricsMXBean.OBJECT_NAME), "getModuleMetrics",
+                new Object[]{"io.esastack_cabin-sample-lib-module"}, new String[]{String.class.getName()});
+        Assert.assertFalse(moduleMetrics.isEmpty());
 
         final String moduleName = container.getLoadedModules().get(0);
         Assert.assertTrue(container.moduleLoaded(moduleName));
@@ -89,6 +114,18 @@ public class CabinContainerTest {
         final Enumeration<URL> filters = container.getBizModuleClassLoader()
                 .getResources("export.file");
         Assert.assertTrue(filters.hasMoreElements());
+
+        //a directory lookup never returns the directory of the exporting module, nor the resources under it
+        final SharedResourceService sharedResourceService =
+                CabinServiceManager.get().getService(SharedResourceService.class);
+        sharedResourceService.addExportClassLoader(
+                "META-INF/maven/io.esastack/cabin-sample-lib-module/pom.xml", libModuleClassLoader);
+        final Enumeration<URL> resources = container.getBizModuleClassLoader().getResources("META-INF/maven/");
+        while (resources.hasMoreElements()) {
+            Assert.assertFalse(resources.nextElement().toExternalForm().contains(Constants.CABIN_MODULE_DIRECTORY));
+        }
+        Assert.assertEquals(Collections.singletonList("META-INF/maven/io.esastack/cabin-sample-lib-module/pom.xml"),
+                sharedResourceService.getResourceNames("META-INF/maven/"));
         container.stop();
     }
 
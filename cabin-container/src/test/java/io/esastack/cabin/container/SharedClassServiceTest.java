@@ -18,6 +18,7 @@ package io.esastack.cabin.container;
 import io.esastack.cabin.api.domain.Module;
 import io.esastack.cabin.api.service.share.SharedClassService;
 import io.esastack.cabin.common.exception.CabinLoaderException;
+import io.esastack.cabin.common.exception.CabinRuntimeException;
 import io.esastack.cabin.container.domain.LibModule;
 import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
 import io.esastack.cabin.container.service.share.SharedClassServiceImpl;
@@ -25,6 +26,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SharedClassServiceTest {
 
@@ -34,6 +38,11 @@ public class SharedClassServiceTest {
         final Module module = new LibModule.Builder().name("test").classLoader(new TestClassLoader()).build();
         SharedClassService sharedClassService = new SharedClassServiceImpl();
         sharedClassService.addSharedClass(clazzName, module);
+        //visible to none of the queries before publishing, as the bulk added classes
+        Assert.assertFalse(sharedClassService.containsClass(clazzName));
+        Assert.assertEquals(0, sharedClassService.getSharedClassCount());
+        Assert.assertNull(sharedClassService.getSharedClass(clazzName));
+        sharedClassService.publishSharedClasses();
         Assert.assertTrue(sharedClassService.containsClass(clazzName));
         Assert.assertTrue(sharedClassService.getSharedClass(clazzName).isAssignableFrom(TestClass.class));
         Assert.assertEquals(1, sharedClassService.getSharedClassCount());
@@ -43,6 +52,112 @@ public class SharedClassServiceTest {
         Assert.assertNotNull(sharedClassService.getSharedClassMap().get(clazzName));
         Assert.assertTrue(sharedClassService.getSharedClassMap().containsKey(clazzName));
     }
+
+    @Test
+    public void publishTest() {
+        final String clazzName = "io.esastack.cabin.container.TestClass";
+        final Module module = new LibModule.Builder().name("test").classLoader(new TestClassLoader()).build();
+        SharedClassService sharedClassService = new SharedClassServiceImpl();
+        sharedClassService.addSharedClass(clazzName, module);
+        sharedClassService.addSharedPackage("io.esastack.cabin.container.share", module);
+        Assert.assertFalse(sharedClassService.isPackageExported("io.esastack.cabin.container.share.impl"));
+        sharedClassService.publishSharedClasses();
+        Assert.assertTrue(sharedClassService.containsClass(clazzName));
+        Assert.assertTrue(sharedClassService.isPackageExported("io.esastack.cabin.container.share.impl"));
+        Assert.assertEquals(1, sharedClassService.getSharedClassCount());
+        Assert.assertSame(TestClass.class, sharedClassService.getSharedClass(clazzName));
+
+        sharedClassService.destroyModuleClasses("test");
+        Assert.assertFalse(sharedClassService.containsClass(clazzName));
+        Assert.assertFalse(sharedClassService.isPackageExported("io.esastack.cabin.container.share"));
+        Assert.assertEquals(0, sharedClassService.getSharedClassCount());
+    }
+
+    @Test
+    public void bulkTest() {
+        final String clazzName = "io.esastack.cabin.container.TestClass";
+        final Module module = new LibModule.Builder().name("test").classLoader(new TestClassLoader()).build();
+        final Module other = new LibModule.Builder().name("other").classLoader(new TestClassLoader()).build();
+        SharedClassService sharedClassService = new SharedClassServiceImpl();
+        sharedClassService.addSharedClasses(Arrays.asList(clazzName, "io.esastack.cabin.container.Other"), module);
+        Assert.assertFalse(sharedClassService.containsClass(clazzName));
+        Assert.assertEquals(0, sharedClassService.getSharedClassCount());
+        Assert.assertNull(sharedClassService.getSharedClass(clazzName));
+
+        //the single add conflicts with the pending classes as the bulk one
+        try {
+            sharedClassService.addSharedClass(clazzName, other);
+            Assert.fail();
+        } catch (CabinRuntimeException e) {
+            //expected
+        }
+
+        //none of the classes is added if any conflicts
+        try {
+            sharedClassService.addSharedClasses(Arrays.asList("io.esastack.cabin.container.Another", clazzName), other);
+            Assert.fail();
+        } catch (CabinRuntimeException e) {
+            //expected
+        }
+        sharedClassService.publishSharedClasses();
+        Assert.assertEquals(2, sharedClassService.getSharedClassCount());
+        Assert.assertFalse(sharedClassService.containsClass("io.esastack.cabin.container.Another"));
+        Assert.assertSame(TestClass.class, sharedClassService.getSharedClass(clazzName));
+    }
+
+    @Test
+    public void missTest() {
+        final AtomicInteger probes = new AtomicInteger();
+        final Module module = new LibModule.Builder().name("test").classLoader(new LibModuleClassLoader("test",
+                new URL[0]) {
+            @Override
+            public Class<?> loadClassFromClasspath(String name) {
+                probes.incrementAndGet();
+                return null;
+            }
+        }).build();
+        SharedClassService sharedClassService = new SharedClassServiceImpl();
+        sharedClassService.addSharedPackage("io.esastack.shared", module);
+        sharedClassService.publishSharedClasses();
+
+        //classes of exported packages are probed every time, as they may be defined later
+        Assert.assertNull(sharedClassService.getSharedClass("io.esastack.shared.impl.Missing"));
+        Assert.assertNull(sharedClassService.getSharedClass("io.esastack.shared.impl.Missing"));
+        Assert.assertEquals(2, probes.get());
+
+        Assert.assertNull(sharedClassService.getSharedClass("io.esastack.other.Missing"));
+        Assert.assertNull(sharedClassService.getSharedClass("io.esastack.other.Missing"));
+        Assert.assertEquals(2, probes.get());
+
+        //publishing an exported package drops the misses
+        sharedClassService.addSharedPackage("io.esastack.other", module);
+        Assert.assertNull(sharedClassService.getSharedClass("io.esastack.other.Missing"));
+        Assert.assertEquals(2, probes.get());
+        sharedClassService.publishSharedClasses();
+        Assert.assertNull(sharedClassService.getSharedClass("io.esastack.other.Missing"));
+        Assert.assertEquals(3, probes.get());
+    }
+
+    @Test
+    public void generatedClassTest() {
+        final AtomicBoolean defined = new AtomicBoolean();
+        final Module module = new LibModule.Builder().name("test").classLoader(new LibModuleClassLoader("test",
+                new URL[0]) {
+            @Override
+            public Class<?> loadClassFromClasspath(String name) {
+                return defined.get() ? TestClass.class : null;
+            }
+        }).build();
+        SharedClassService sharedClassService = new SharedClassServiceImpl();
+        sharedClassService.addSharedPackage("io.esastack.shared", module);
+        sharedClassService.publishSharedClasses();
+
+        final String className = "io.esastack.shared.Generated$$EnhancerByCGLIB";
+        Assert.assertNull(sharedClassService.getSharedClass(className));
+        //defined in the exporting module at runtime after the miss
+        defined.set(true);
+        Assert.assertSame(TestClass.class, sharedClassService.getSharedClass(className));
+    }
 }
 
 class TestClass {
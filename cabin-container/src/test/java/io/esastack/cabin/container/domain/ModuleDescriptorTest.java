@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_EXPORT_PACKAGES;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_IMPORT_CLASSES;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_LOAD_FROM_BIZ;
+import static io.esastack.cabin.common.constant.Constants.MANIFEST_MODULE_PRIORITY;
+
+public class ModuleDescriptorTest {
+
+    @Test
+    public void manifestTest() {
+        final Manifest manifest = new Manifest();
+        final Attributes attributes = manifest.getMainAttributes();
+        attributes.putValue(MANIFEST_MODULE_PRIORITY, "10");
+        attributes.putValue(MANIFEST_EXPORT_PACKAGES, "a.b,,a.c");
+        attributes.putValue(MANIFEST_IMPORT_CLASSES, "a.B, a.C");
+        attributes.putValue(MANIFEST_LOAD_FROM_BIZ, "true");
+
+        final ModuleDescriptor descriptor = ModuleDescriptor.of(manifest, Collections.singletonList("a.Provided"));
+        Assert.assertEquals(10, descriptor.getPriority());
+        Assert.assertEquals(Arrays.asList("a.b", "a.c"), descriptor.toExportInfo().getPackages());
+        Assert.assertEquals(Arrays.asList("a.B", "a.C"), descriptor.toImportInfo().getImportClassList());
+        Assert.assertTrue(descriptor.toImportInfo().isLoadFromBizClassLoader());
+        Assert.assertEquals(Collections.singletonList("a.Provided"), descriptor.getProvidedClasses());
+
+        final ModuleDescriptor empty = ModuleDescriptor.of(null, Collections.emptyList());
+        Assert.assertEquals(ModuleDescriptor.DEFAULT_PRIORITY, empty.getPriority());
+        Assert.assertTrue(empty.toExportInfo().getClasses().isEmpty());
+        Assert.assertFalse(empty.isLoadFromBizClassLoader());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.initialize;
+
+import io.esastack.cabin.common.exception.CabinRuntimeException;
+import io.esastack.cabin.container.processor.Processor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ProcessorSchedulerTest {
+
+    private static final Queue<String> processed = new ConcurrentLinkedQueue<>();
+
+    @Test
+    public void dependencyTest() {
+        processed.clear();
+        //given in reverse order of the dependencies
+        final ProcessorScheduler scheduler =
+                new ProcessorScheduler(Arrays.asList(new Third(), new Second(), new First(false)));
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<StartupTimeline.Span> stages = scheduler.run(null, executor);
+            Assert.assertEquals(3, stages.size());
+            Assert.assertEquals("Third", stages.get(2).getName());
+            Assert.assertEquals(StartupTimeline.CATEGORY_PROCESSOR, stages.get(2).getCategory());
+            Assert.assertEquals(Arrays.asList("First", "Second", "Third"), Arrays.asList(processed.toArray()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failureTest() {
+        processed.clear();
+        final ProcessorScheduler scheduler = new ProcessorScheduler(Arrays.asList(new First(true), new Second()));
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            scheduler.run(null, executor);
+            Assert.fail();
+        } catch (CabinRuntimeException e) {
+            Assert.assertEquals("First", e.getCause().getMessage());
+            Assert.assertTrue(processed.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = CabinRuntimeException.class)
+    public void missingDependencyTest() {
+        new ProcessorScheduler(Collections.singletonList(new Second()));
+    }
+
+    private static class First implements Processor {
+
+        private final boolean fail;
+
+        First(final boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void process(final CabinBootContext cabinBootContext) {
+            if (fail) {
+                throw new IllegalStateException("First");
+            }
+            processed.add("First");
+        }
+    }
+
+    private static class Second implements Processor {
+        @Override
+        public void process(final CabinBootContext cabinBootContext) {
+            processed.add("Second");
+        }
+
+        @Override
+        public List<Class<? extends Processor>> getDependencies() {
+            return Collections.singletonList(First.class);
+        }
+    }
+
+    private static class Third implements Processor {
+        @Override
+        public void process(final CabinBootContext cabinBootContext) {
+            processed.add("Third");
+        }
+
+        @Override
+        public List<Class<? extends Processor>> getDependencies() {
+            return Arrays.asList(First.class, Second.class);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.initialize;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+public class StartupTimelineTest {
+
+    @Test
+    public void timelineTest() {
+        final StartupTimeline timeline = StartupTimeline.get();
+        final StartupTimeline.Span span = timeline.start(StartupTimeline.CATEGORY_EXPORT, "export", "test\"module");
+        span.count("classes", 3).end();
+
+        Assert.assertTrue(timeline.getSpans().contains(span));
+        Assert.assertTrue(span.getDurationNanos() >= 0);
+        Assert.assertTrue(timeline.toJson().contains("\"module\":\"test\\\"module\""));
+        Assert.assertTrue(timeline.toJson().contains("\"counts\":{\"classes\":3}"));
+
+        final String trace = timeline.toChromeTrace();
+        Assert.assertTrue(trace.startsWith("{\"traceEvents\":[{\"name\":\"thread_name\",\"ph\":\"M\""));
+        Assert.assertTrue(trace.contains("\"cat\":\"export\",\"ph\":\"X\""));
+        Assert.assertTrue(trace.contains("\"args\":{\"classes\":3}"));
+
+        //measured from the jvm start, not from the first use of the timeline
+        final long uptimeNanos = TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+        final StartupTimeline.Span sinceStart = timeline.sinceOrigin(StartupTimeline.CATEGORY_BIZ, "timeToMain");
+        Assert.assertEquals(0, sinceStart.getStartNanos());
+        Assert.assertTrue(sinceStart.getDurationNanos() >= uptimeNanos - TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
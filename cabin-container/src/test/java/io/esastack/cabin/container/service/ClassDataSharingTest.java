@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service;
+
+import io.esastack.cabin.container.service.loader.ClassDataSharing;
+import io.esastack.cabin.loader.jar.JarFile;
+import io.esastack.cabin.loader.util.ArchiveUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class ClassDataSharingTest {
+
+    @Test
+    public void stableJarUrlsTest() throws Exception {
+        JarFile.registerUrlProtocolHandler();
+        final URL[] moduleUrls = ArchiveUtils.extractModuleURLs(ArchiveUtils.createArchiveFromUrl(
+                ClassDataSharingTest.class.getClassLoader().getResource("cabin-sample-app-0.1.0.jar")));
+        Assert.assertNotNull(moduleUrls);
+        final File dir = Files.createTempDirectory("cabin-cds").toFile();
+        final URL[] stableUrls = ArchiveUtils.toStableJarUrls(moduleUrls, dir);
+        for (URL url : stableUrls) {
+            Assert.assertEquals("file", url.getProtocol());
+            Assert.assertTrue(ArchiveUtils.getFile(url).isFile());
+        }
+        //extracted only once, into the same path
+        Assert.assertArrayEquals(stableUrls, ArchiveUtils.toStableJarUrls(moduleUrls, dir));
+        Assert.assertEquals(stableUrls.length, dir.listFiles().length);
+    }
+
+    @Test
+    public void classListTest() throws Exception {
+        final URL junitJar = Test.class.getProtectionDomain().getCodeSource().getLocation();
+        final String source = new File(junitJar.toURI()).getAbsolutePath();
+        final URL testClasses = ClassDataSharingTest.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader jarLoader = new URLClassLoader(new URL[]{junitJar}, null);
+                URLClassLoader dirLoader = new URLClassLoader(new URL[]{testClasses}, null)) {
+            final List<String> lines = ClassDataSharing.toClassList(Arrays.asList(
+                    jarLoader.loadClass(TestName.class.getName()),
+                    dirLoader.loadClass(ClassDataSharingTest.class.getName())));
+            //TestName extends TestWatcher implements TestRule, the classes of a dir are skipped
+            Assert.assertEquals(Arrays.asList(
+                    "java/lang/Object id: 0",
+                    "org/junit/rules/TestRule id: 1 super: 0 source: " + source,
+                    "org/junit/rules/TestWatcher id: 2 super: 0 interfaces: 1 source: " + source,
+                    "org/junit/rules/TestName id: 3 super: 2 source: " + source), lines);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service;
+
+import io.esastack.cabin.container.service.loader.ClassLoadMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ClassLoadMetricsTest {
+
+    @Test
+    public void recordTest() {
+        final ClassLoadMetrics metrics = new ClassLoadMetrics();
+        for (int i = 0; i < 10; i++) {
+            metrics.record(ClassLoadMetrics.Source.LOCAL, ClassLoadMetrics.startNanos());
+        }
+        metrics.record(ClassLoadMetrics.Source.MISS, ClassLoadMetrics.startNanos());
+        Assert.assertEquals(10, metrics.getCount(ClassLoadMetrics.Source.LOCAL));
+        Assert.assertEquals(10, metrics.getLoadedCount());
+
+        final Map<String, ClassLoadMetrics.Stats> stats = metrics.snapshot();
+        Assert.assertEquals(2, stats.size());
+        Assert.assertEquals(1, stats.get("miss").getCount());
+        Assert.assertTrue(stats.get("local").getP99Nanos() <= stats.get("local").getMaxNanos());
+
+        metrics.reset();
+        Assert.assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    public void percentileTest() {
+        final ClassLoadMetrics metrics = new ClassLoadMetrics();
+        final long now = System.nanoTime();
+        for (int i = 0; i < 99; i++) {
+            metrics.record(ClassLoadMetrics.Source.JDK, now);
+        }
+        //a single slow load far in the past shows in the max and the tail only
+        metrics.record(ClassLoadMetrics.Source.JDK, now - 1_000_000_000L);
+        final ClassLoadMetrics.Histogram histogram = metrics.getHistogram(ClassLoadMetrics.Source.JDK);
+        Assert.assertTrue(histogram.getMaxNanos() >= 1_000_000_000L);
+        Assert.assertTrue(histogram.getValueAtPercentile(50) < 1_000_000_000L);
+        Assert.assertTrue(histogram.getValueAtPercentile(100) >= 1_000_000_000L);
+    }
+}
@@ -2,9 +2,23 @@ package io.esastack.cabin.container.service;
 
 import io.esastack.cabin.common.util.ClassLoaderUtils;
 import io.esastack.cabin.container.service.loader.JavaAgentClassLoader;
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
 import io.esastack.cabin.container.service.loader.UnitTestModuleClassLoader;
+import io.esastack.cabin.loader.jar.JarFile;
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ClassLoaderTest {
 
@@ -21,4 +35,82 @@ public class ClassLoaderTest {
                 new JavaAgentClassLoader(ClassLoader.getSystemResource("cabin-sample-app-0.1.0.jar"));
         Assert.assertNotNull(classLoader.getAgentUrl());
     }
+
+    /**
+     * Resources are looked up in the cabin jars directly, but the URLs handed out keep the normal handler, so a URL
+     * built on them still fails with a descriptive exception.
+     */
+    @Test
+    public void resourceUrlTest() throws Exception {
+        final File file = new File(ClassLoader.getSystemResource("cabin-sample-app-0.1.0.jar").toURI());
+        try (JarFile jarFile = new JarFile(file)) {
+            final String name = "APP-INF/classes/META-INF/MANIFEST.MF";
+            final LibModuleClassLoader loader = new LibModuleClassLoader("resource", new URL[]{jarFile.getUrl()});
+            Assert.assertTrue(loader.getJarClassPath().isDirect());
+            final URL url = loader.findResource(name);
+            Assert.assertEquals(new URL(jarFile.getUrl(), name).toExternalForm(), url.toExternalForm());
+            try (InputStream in = url.openStream()) {
+                Assert.assertTrue(in.read() >= 0);
+            }
+            Assert.assertTrue(loader.findResources(name).hasMoreElements());
+            Assert.assertNull(loader.findResource("missing.properties"));
+            Assert.assertFalse(loader.findResources("missing.properties").hasMoreElements());
+            try (InputStream ignored = new URL(url, "missing.properties").openStream()) {
+                Assert.fail();
+            } catch (FileNotFoundException ex) {
+                Assert.assertTrue(ex.getMessage().contains("APP-INF/classes/META-INF/missing.properties"));
+            }
+        }
+    }
+
+    /**
+     * Each thread holds the lock of its own loader for the class, as in loadClass, then loads the class from the other
+     * loader, as a lib module importing from biz while biz loads the class shared by the lib module.
+     */
+    @Test(timeout = 10000L)
+    public void crossLoaderClassLoadingTest() throws Exception {
+        final URL[] urls = {Test.class.getProtectionDomain().getCodeSource().getLocation()};
+        final LockingClassLoader first = new LockingClassLoader("first", urls);
+        final LockingClassLoader second = new LockingClassLoader("second", urls);
+        final String name = TestName.class.getName();
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final Future<Class<?>> fromSecond = executor.submit(() -> first.loadFromOther(name, second, barrier));
+            final Future<Class<?>> fromFirst = executor.submit(() -> second.loadFromOther(name, first, barrier));
+            Assert.assertSame(second, fromSecond.get().getClassLoader());
+            Assert.assertSame(first, fromFirst.get().getClassLoader());
+
+            //concurrent definitions of the same class without the lock end up with the same class
+            final LockingClassLoader third = new LockingClassLoader("third", urls);
+            final List<Future<Class<?>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> third.loadClassFromClasspath(name)));
+            }
+            for (Future<Class<?>> future : futures) {
+                Assert.assertSame(third.loadClassFromClasspath(name), future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class LockingClassLoader extends LibModuleClassLoader {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        LockingClassLoader(final String moduleName, final URL[] urls) {
+            super(moduleName, urls);
+        }
+
+        Class<?> loadFromOther(final String name, final LockingClassLoader other, final CyclicBarrier barrier)
+                throws Exception {
+            synchronized (getClassLoadingLock(name)) {
+                barrier.await();
+                return other.loadClassFromClasspath(name);
+            }
+        }
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service;
+
+import io.esastack.cabin.container.service.loader.NegativeLookupCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NegativeLookupCacheTest {
+
+    @Test
+    public void cacheTest() {
+        final NegativeLookupCache cache = new NegativeLookupCache(2);
+        Assert.assertFalse(cache.contains("a"));
+        cache.add("a", cache.generation());
+        Assert.assertTrue(cache.contains("a"));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        cache.add("b", cache.generation());
+        cache.add("c", cache.generation());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertTrue(cache.contains("c"));
+    }
+
+    @Test
+    public void invalidateTest() {
+        final NegativeLookupCache cache = new NegativeLookupCache(16);
+        final long generation = cache.generation();
+        cache.add("a", generation);
+        Assert.assertTrue(cache.contains("a"));
+
+        NegativeLookupCache.invalidateAll();
+        Assert.assertFalse(cache.contains("a"));
+
+        //a lookup started before the module set changed should not be recorded
+        cache.add("b", generation);
+        Assert.assertFalse(cache.contains("b"));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service;
+
+import io.esastack.cabin.container.service.loader.PackagePrefixTrie;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static io.esastack.cabin.container.service.loader.PackagePrefixTrie.CABIN;
+import static io.esastack.cabin.container.service.loader.PackagePrefixTrie.IMPORT;
+import static io.esastack.cabin.container.service.loader.PackagePrefixTrie.NONE;
+
+public class PackagePrefixTrieTest {
+
+    @Test
+    public void matchTest() {
+        final PackagePrefixTrie trie = PackagePrefixTrie.newBuilder()
+                .addAll(new String[]{"io.esastack.cabin"}, CABIN)
+                .addAll(Arrays.asList("javax", "org.slf4j", "", " ", null), IMPORT)
+                .add("io.esastack.cabin.shared", IMPORT)
+                .build();
+
+        Assert.assertEquals(CABIN, trie.match("io.esastack.cabin.container.CabinContainer"));
+        Assert.assertEquals(CABIN | IMPORT, trie.match("io.esastack.cabin.shared.Foo"));
+        Assert.assertEquals(IMPORT, trie.match("javax.annotation.Resource"));
+        Assert.assertEquals(IMPORT, trie.match("org.slf4j.Logger"));
+        //same as String::startsWith, not bounded by package separator
+        Assert.assertEquals(IMPORT, trie.match("javaxyz.Foo"));
+        Assert.assertEquals(NONE, trie.match("java.lang.String"));
+        Assert.assertEquals(NONE, trie.match("io.esastack"));
+        Assert.assertEquals(NONE, trie.match(""));
+        Assert.assertTrue(trie.matches("javax.Foo", IMPORT));
+        Assert.assertFalse(trie.matches("javax.Foo", CABIN));
+    }
+
+    @Test
+    public void extendTest() {
+        final PackagePrefixTrie base = PackagePrefixTrie.newBuilder().add("io.esastack.cabin", CABIN).build();
+        final PackagePrefixTrie extended = PackagePrefixTrie.newBuilder()
+                .addAll(base)
+                .add("io.netty", IMPORT)
+                .build();
+        Assert.assertEquals(CABIN, extended.match("io.esastack.cabin.Foo"));
+        Assert.assertEquals(IMPORT, extended.match("io.netty.Channel"));
+        Assert.assertEquals(NONE, base.match("io.netty.Channel"));
+    }
+}
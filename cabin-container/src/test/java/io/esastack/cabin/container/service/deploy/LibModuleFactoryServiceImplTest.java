@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.deploy;
+
+import io.esastack.cabin.common.constant.Constants;
+import io.esastack.cabin.loader.archive.ExplodedArchive;
+import io.esastack.cabin.loader.util.ExportIndex;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+public class LibModuleFactoryServiceImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * An export index of an unknown version, such as one written by a newer plugin, falls back to the text files.
+     */
+    @Test
+    public void unknownExportIndexVersionTest() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportIndex.write(out, Collections.singletonList("io.esastack.a.Foo"), Collections.emptyList());
+        final byte[] index = out.toByteArray();
+        //the version follows the magic number
+        index[7] = 99;
+
+        final File root = folder.newFolder("module");
+        final File conf = new File(root, "conf");
+        Assert.assertTrue(conf.mkdirs());
+        Files.write(new File(root, Constants.EXPORT_INDEX_FILE).toPath(), index);
+        Files.write(new File(root, Constants.EXPORTED_CLASS_FILE).toPath(),
+                "io.esastack.a.Foo\nio.esastack.b.Bar\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(root, Constants.EXPORTED_RESOURCE_FILE).toPath(),
+                "META-INF/spring.factories\n".getBytes(StandardCharsets.UTF_8));
+
+        final ExportIndex exportIndex =
+                new LibModuleFactoryServiceImpl().getExportIndex("module", new ExplodedArchive(root));
+        Assert.assertEquals(2, exportIndex.getClassCount());
+        Assert.assertEquals(Collections.singletonList("META-INF/spring.factories"), exportIndex.getResources());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.share;
+
+import io.esastack.cabin.container.domain.LibModule;
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedClassPreloaderTest {
+
+    @Test
+    public void preloadTest() {
+        final LibModule moduleA = new LibModule.Builder().name("a")
+                .classLoader(new LibModuleClassLoader("a", new URL[0])).build();
+        final LibModule moduleB = new LibModule.Builder().name("b")
+                .classLoader(new LibModuleClassLoader("b", new URL[0])).build();
+        final Map<String, LibModule> classToModuleMap = new LinkedHashMap<>();
+        for (int i = 0; i < 600; i++) {
+            classToModuleMap.put("a.A" + i, moduleA);
+        }
+        classToModuleMap.put("b.Loaded", moduleB);
+        classToModuleMap.put("b.Missing", moduleB);
+
+        final AtomicBoolean wrongTccl = new AtomicBoolean();
+        final AtomicInteger missed = new AtomicInteger();
+        final Map<String, SharedClassPreloader.ModulePreload> preloads = new SharedClassPreloader(4, (name, module) -> {
+            if (Thread.currentThread().getContextClassLoader() != module.getClassLoader()) {
+                wrongTccl.set(true);
+            }
+            if ("b.Missing".equals(name)) {
+                missed.incrementAndGet();
+                return null;
+            }
+            return Object.class;
+        }).preload(classToModuleMap);
+
+        Assert.assertFalse(wrongTccl.get());
+        Assert.assertEquals(600, preloads.get("a").getLoadedCount());
+        Assert.assertEquals(2, preloads.get("b").getClassCount());
+        Assert.assertEquals(1, preloads.get("b").getLoadedCount());
+        //a failed class is not retried
+        Assert.assertEquals(1, missed.get());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.share;
+
+import io.esastack.cabin.common.exception.CabinRuntimeException;
+import io.esastack.cabin.container.domain.LibModule;
+import io.esastack.cabin.container.service.loader.LibModuleClassLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SharedClassRoutingTableTest {
+
+    private final LibModule moduleA = new LibModule.Builder().name("a")
+            .classLoader(new LibModuleClassLoader("a", new URL[0])).build();
+
+    private final LibModule moduleB = new LibModule.Builder().name("b")
+            .classLoader(new LibModuleClassLoader("b", new URL[0])).build();
+
+    @Test
+    public void routeTest() {
+        final SharedClassRoutingTable table = new SharedClassRoutingTable.Builder(null, null)
+                .addClass("com.a.Foo", moduleA)
+                .addClass("com.a.Foo$Inner", moduleA)
+                .addClass("com.a.sub.Bar", moduleA)
+                .addClass("com.b.Foo", moduleB)
+                .addClass("Default", moduleB)
+                .addPackage("com.a", moduleA)
+                .addPackage("com.shared", moduleA)
+                .addPackage("com.shared", moduleB)
+                .build();
+
+        Assert.assertEquals(5, table.getClassCount());
+        Assert.assertSame(moduleA, table.getModule("com.a.Foo"));
+        Assert.assertSame(moduleA, table.getModule("com.a.Foo$Inner"));
+        Assert.assertSame(moduleA, table.getModule("com.a.sub.Bar"));
+        Assert.assertSame(moduleB, table.getModule("com.b.Foo"));
+        Assert.assertSame(moduleB, table.getModule("Default"));
+        Assert.assertNull(table.getModule("com.a.Fo"));
+        Assert.assertNull(table.getModule("com.a.Foo1"));
+        Assert.assertNull(table.getModule("com.c.Foo"));
+
+        Assert.assertTrue(table.isPackageExported("com.a"));
+        Assert.assertFalse(table.isPackageExported("com.b"));
+        Assert.assertFalse(table.isPackageExported("com"));
+        Assert.assertEquals(2, table.getPackageExporters("com.shared").size());
+        Assert.assertTrue(table.getPackageExporters("com.a.sub").isEmpty());
+
+        Assert.assertNull(table.getLoadedClass("com.a.Foo"));
+        Assert.assertTrue(table.setLoadedClass("com.a.Foo", String.class));
+        Assert.assertFalse(table.setLoadedClass("com.c.Foo", String.class));
+        Assert.assertSame(String.class, table.getLoadedClass("com.a.Foo"));
+
+        final Map<String, LibModule> classes = new HashMap<>();
+        table.forEachClass(classes::put);
+        Assert.assertEquals(5, classes.size());
+        Assert.assertSame(moduleA, classes.get("com.a.Foo$Inner"));
+    }
+
+    @Test
+    public void loadedIndexTest() {
+        final SharedClassRoutingTable.Builder builder = new SharedClassRoutingTable.Builder(null, null);
+        for (int i = 0; i < 100; i++) {
+            builder.addClass("com.a.Foo" + i, moduleA);
+        }
+        final SharedClassRoutingTable table = builder.build();
+        for (int i = 0; i < 100; i += 2) {
+            Assert.assertTrue(table.setLoadedClass("com.a.Foo" + i, i % 4 == 0 ? String.class : Integer.class));
+        }
+        for (int i = 0; i < 100; i++) {
+            Assert.assertSame(i % 2 == 1 ? null : i % 4 == 0 ? String.class : Integer.class,
+                    table.getLoadedClass("com.a.Foo" + i));
+        }
+    }
+
+    @Test
+    public void rebuildTest() {
+        final SharedClassRoutingTable table = new SharedClassRoutingTable.Builder(null, null)
+                .addClass("com.a.Foo", moduleA)
+                .addClass("com.b.Foo", moduleB)
+                .addPackage("com.shared", moduleA)
+                .addPackage("com.shared", moduleB)
+                .build();
+        table.setLoadedClass("com.b.Foo", String.class);
+
+        try {
+            new SharedClassRoutingTable.Builder(table, null).addClass("com.a.Foo", moduleB);
+            Assert.fail();
+        } catch (CabinRuntimeException e) {
+            //expected
+        }
+
+        final SharedClassRoutingTable rebuilt = new SharedClassRoutingTable.Builder(table, "a").build();
+        Assert.assertEquals(1, rebuilt.getClassCount());
+        Assert.assertNull(rebuilt.getModule("com.a.Foo"));
+        Assert.assertSame(String.class, rebuilt.getLoadedClass("com.b.Foo"));
+        Assert.assertEquals(1, rebuilt.getPackageExporters("com.shared").size());
+        Assert.assertSame(moduleA, table.getModule("com.a.Foo"));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.esastack.cabin.container.service.share;
+
+import io.esastack.cabin.api.service.loader.ClassLoaderService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SharedResourceServiceTest {
+
+    @Test
+    public void indexTest() {
+        final ClassLoader loaderA = new URLClassLoader(new URL[0]);
+        final ClassLoader loaderB = new URLClassLoader(new URL[0]);
+        final SharedResourceServiceImpl service = new SharedResourceServiceImpl();
+        service.setClassLoaderService((ClassLoaderService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ClassLoaderService.class},
+                (proxy, method, args) -> "getLibModuleClassLoader".equals(method.getName()) ? loaderA : null));
+
+        service.addExportClassLoader("META-INF/services/a.Service", loaderA);
+        service.addExportClassLoader("META-INF/services/a.Service", loaderA);
+        service.addExportClassLoaders(Arrays.asList("META-INF/services/a.Service", "META-INF/spring.factories"),
+                loaderB);
+
+        Assert.assertEquals(Arrays.asList(loaderA, loaderB),
+                service.getResourceClassLoaders("META-INF/services/a.Service"));
+        Assert.assertTrue(service.getResourceNames("META-INF/spring/").isEmpty());
+        Assert.assertEquals(Collections.singletonList("META-INF/services/a.Service"),
+                service.getResourceNames("META-INF/services/"));
+        Assert.assertEquals(2, service.getResourceNames("META-INF/").size());
+
+        service.destroyModuleResources("a");
+        Assert.assertEquals(Collections.singletonList(loaderB),
+                service.getResourceClassLoaders("META-INF/services/a.Service"));
+        Assert.assertEquals(2, service.getResourceNames("META-INF/").size());
+    }
+}
@@ -19,6 +19,7 @@ import io.esastack.cabin.common.constant.Constants;
 import io.esastack.cabin.loader.archive.Archive;
 import io.esastack.cabin.loader.archive.JarFileArchive;
 import io.esastack.cabin.loader.util.ArchiveUtils;
+import io.esastack.cabin.loader.util.ExportIndex;
 import io.esastack.cabin.log.Logger;
 import io.esastack.cabin.tools.ArtifactPojo;
 import io.esastack.cabin.tools.JarWriter;
@@ -582,9 +583,28 @@ public class CabinModuleMojo extends AbstractMojo {
         scanClassesAndResourcesFromArchives(artifacts, exportPackages, exportClasses, resourcePrefixs, resources);
         appendStringCollectionToFile(archiver, Constants.EXPORTED_CLASS_FILE, exportClasses);
         appendStringCollectionToFile(archiver, Constants.EXPORTED_RESOURCE_FILE, resources);
+        appendExportIndexFile(archiver, exportClasses, resources);
 
     }
 
+    /**
+     * The text files are kept for the containers not reading the index.
+     */
+    private void appendExportIndexFile(final Archiver archiver,
+                                       final Collection<String> exportClasses,
+                                       final Collection<String> resources) throws MojoExecutionException {
+        final File file = new File(this.workDirectory + "/" + Constants.EXPORT_INDEX_FILE);
+        if (!file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            ExportIndex.write(out, exportClasses, resources);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to create new File: " + file.getPath(), e);
+        }
+        archiver.addFile(file, Constants.EXPORT_INDEX_FILE);
+    }
+
     private void appendProvidedClassFile(Archiver archiver, Set<Artifact> artifacts) throws MojoExecutionException {
         List<String> providedClasses = new ArrayList<>();
         for (Artifact artifact : artifacts) {